@@ -0,0 +1,65 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Setting up, hashing and comparing boards from {@link Positions}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private ChessBoard board;
+    private List<ChessGame> games;
+    private List<ChessGame> copies;
+
+    @Setup
+    public void setup() {
+        board = new ChessBoard();
+        games = Positions.all();
+        copies = Positions.all();
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        board.resetBoard();
+        return board;
+    }
+
+    @Benchmark
+    public void hashCodes(Blackhole blackhole) {
+        for(ChessGame game: games){
+            blackhole.consume(game.hashCode());
+            blackhole.consume(game.getBoard().hashCode());
+        }
+    }
+
+    //Each position against an equal copy and against the next position
+    @Benchmark
+    public void equalBoards(Blackhole blackhole) {
+        for(int i = 0; i < games.size(); i++){
+            ChessBoard mine = games.get(i).getBoard();
+            blackhole.consume(mine.equals(copies.get(i).getBoard()));
+            blackhole.consume(mine.equals(copies.get((i + 1) % copies.size()).getBoard()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.PieceMovesCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each {@link PieceMovesCalculator} on every piece of its type in {@link Positions},
+ * both into a reused {@link MoveList} and through the collection-returning
+ * {@code pieceMoves}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private PieceMovesCalculator calculator;
+    private ChessBoard[] boards;
+    private int[] squares;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        calculator = PieceMovesCalculator.of(type);
+        List<ChessBoard> boardList = new ArrayList<>();
+        List<Integer> squareList = new ArrayList<>();
+        for(ChessGame game: Positions.all()){
+            ChessBoard board = game.getBoard();
+            for(int square = 0; square < 64; square++){
+                ChessPiece piece = board.getPiece(Bitboards.position(square));
+                if(piece != null && piece.getPieceType() == type){
+                    boardList.add(board);
+                    squareList.add(square);
+                }
+            }
+        }
+        boards = boardList.toArray(new ChessBoard[0]);
+        squares = squareList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Benchmark
+    public int generate() {
+        moves.clear();
+        for(int i = 0; i < squares.length; i++){
+            calculator.generate(boards[i], squares[i], moves);
+        }
+        return moves.size();
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for(int i = 0; i < squares.length; i++){
+            ChessPosition position = Bitboards.position(squares[i]);
+            blackhole.consume(calculator.pieceMoves(boards[i], position));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation, moving and game status on {@link ChessGame}, each run once over
+ * every position in {@link Positions}. Scores are passes over the whole corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    private List<ChessGame> games;
+    private ChessPosition[][] ownPieces;
+    private ChessMove[][] firstMoves;
+
+    @Setup
+    public void setup() {
+        games = Positions.all();
+        ownPieces = new ChessPosition[games.size()][];
+        firstMoves = new ChessMove[games.size()][];
+        for(int i = 0; i < games.size(); i++){
+            ChessGame game = games.get(i);
+            List<ChessPosition> squares = new ArrayList<>();
+            List<ChessMove> moves = new ArrayList<>();
+            for(int row = 1; row <= 8; row++){
+                for(int col = 1; col <= 8; col++){
+                    ChessPosition position = ChessPosition.of(row, col);
+                    ChessPiece piece = game.getBoard().getPiece(position);
+                    if(piece != null && piece.getTeamColor() == game.getTeamTurn()){
+                        squares.add(position);
+                        //One move per piece keeps makeMove spread over every piece type
+                        game.validMoves(position).stream().findFirst().ifPresent(moves::add);
+                    }
+                }
+            }
+            ownPieces[i] = squares.toArray(new ChessPosition[0]);
+            firstMoves[i] = moves.toArray(new ChessMove[0]);
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for(int i = 0; i < games.size(); i++){
+            ChessGame game = games.get(i);
+            for(ChessPosition position: ownPieces[i]){
+                blackhole.consume(game.validMoves(position));
+            }
+        }
+    }
+
+    @Benchmark
+    public void makeMove(Blackhole blackhole) throws InvalidMoveException {
+        for(int i = 0; i < games.size(); i++){
+            ChessGame game = games.get(i);
+            for(ChessMove move: firstMoves[i]){
+                game.makeMove(move);
+                blackhole.consume(game.getTeamTurn());
+                game.undoMove();
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInCheck(Blackhole blackhole) {
+        for(ChessGame game: games){
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.WHITE));
+            blackhole.consume(game.isInCheck(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    //The status answers are cached per position, so each one is asked right after a
+    //move has been made, the way the server asks after every move
+
+    @Benchmark
+    public void isInCheckmate(Blackhole blackhole) {
+        for(int i = 0; i < games.size(); i++){
+            ChessGame game = games.get(i);
+            for(ChessMove move: firstMoves[i]){
+                game.doMove(move);
+                blackhole.consume(game.isInCheckmate(game.getTeamTurn()));
+                game.undoMove();
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInStalemate(Blackhole blackhole) {
+        for(int i = 0; i < games.size(); i++){
+            ChessGame game = games.get(i);
+            for(ChessMove move: firstMoves[i]){
+                game.doMove(move);
+                blackhole.consume(game.isInStalemate(game.getTeamTurn()));
+                game.undoMove();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixed set of positions every benchmark runs over: the opening, a few
+ * well-trodden middlegames reached by playing out real lines, and some endgames
+ * with few pieces and promotions in the air.
+ */
+public final class Positions {
+
+    //Lines are in coordinate form, played from the starting position
+    private static final String[] LINES = {
+            "",
+            "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6 d2d3 f8c5 c2c3 d7d6 b1d2 c8g4 h2h3 g4h5",
+            "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7 e2e3 b8d7 g1f3 c7c6 f1d3 d5c4 d3c4 b7b5 c4d3 a7a6",
+            "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6 c1e3 e7e5 d4b3 c8e6 f2f3 f8e7 d1d2 b8d7 g2g4 h7h6",
+            "e2e4 e7e5 g1f3 b8c6 d2d4 e5d4 f3d4 g8f6 d4c6 b7c6 e4e5 d8e7 d1e2 f6d5 c2c4 c8a6 b2b3 g7g6 c1b2 f8g7",
+            "e2e4 e7e5 d1h5 b8c6 f1c4 g8f6 h5f7",
+    };
+
+    //Side to move, then pieces: upper case is white, lower case black, then the square
+    private static final String[][] PLACEMENTS = {
+            {"w", "Kg1", "Rd1", "Pa2", "Pb2", "Pf2", "Pg3", "Ph2", "kg8", "rd8", "pa7", "pb6", "pf7", "pg7", "ph7"},
+            {"w", "Kh1", "Pb7", "Pc7", "Rd1", "kh8", "pg2", "pf2", "ra8"},
+            {"b", "Ke4", "Nd4", "Bc1", "Pe5", "kd7", "bb7", "pa5", "pe6"},
+            {"b", "Kf7", "Qg6", "kh8"},
+    };
+
+    private Positions() {
+    }
+
+    /**
+     * @return a fresh copy of every position in the corpus
+     */
+    public static List<ChessGame> all() {
+        List<ChessGame> games = new ArrayList<>();
+        for(String line: LINES){
+            games.add(play(line));
+        }
+        for(String[] placement: PLACEMENTS){
+            games.add(place(placement));
+        }
+        return games;
+    }
+
+    private static ChessGame play(String line) {
+        ChessGame game = new ChessGame();
+        if(line.isEmpty()){
+            return game;
+        }
+        for(String move: line.split(" ")){
+            game.doMove(ChessMove.of(position(move, 0), position(move, 2), null));
+        }
+        return game;
+    }
+
+    private static ChessGame place(String[] placement) {
+        ChessBoard board = new ChessBoard();
+        for(int i = 1; i < placement.length; i++){
+            String piece = placement[i];
+            char letter = piece.charAt(0);
+            ChessGame.TeamColor color = Character.isUpperCase(letter)
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toUpperCase(letter)) {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                case 'B' -> ChessPiece.PieceType.BISHOP;
+                case 'N' -> ChessPiece.PieceType.KNIGHT;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(position(piece, 1), ChessPiece.of(color, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(placement[0].equals("w") ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+        return game;
+    }
+
+    private static ChessPosition position(String text, int offset) {
+        return ChessPosition.of(text.charAt(offset + 1) - '0', text.charAt(offset) - 'a' + 1);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ParallelSearch;
+import chess.SearchLimits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to search every position in {@link Positions} to a fixed depth, by number of
+ * search threads. The shared table is emptied before each pass so every thread
+ * count starts cold.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"6"})
+    public int depth;
+
+    private List<ChessGame> games;
+    private ParallelSearch search;
+
+    @Setup
+    public void setup() {
+        games = Positions.all();
+        search = new ParallelSearch(threads, 64);
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public void fixedDepth(Blackhole blackhole) {
+        search.clear();
+        for(ChessGame game: games){
+            blackhole.consume(search.search(game, SearchLimits.depth(depth)));
+        }
+    }
+}
@@ -78,7 +78,7 @@ public class ChessBoard {
                 squareColor = getSquareColor(row, col);
             }
 
-            ChessPosition position = new ChessPosition(row, col);
+            ChessPosition position = ChessPosition.of(row, col);
             ChessPiece piece = game.getBoard().getPiece(position);
             String pieceSymbol = getPieceSymbol(piece);
 
@@ -133,7 +133,7 @@ public class ChessBoard {
             return false;
         }
 
-        ChessPosition position = new ChessPosition(row, col);
+        ChessPosition position = ChessPosition.of(row, col);
         for(ChessMove move: moves){
             if(move.getStartPosition().equals(position) ||
             move.getEndPosition().equals(position)){
@@ -130,6 +130,7 @@ public class GamePlayUI implements ServerMessageObserver {
         System.out.println(SET_TEXT_COLOR_BLUE + "redraw" + SET_TEXT_COLOR_WHITE + " - redraw the chessboard");
         System.out.println(SET_TEXT_COLOR_BLUE + "leave" + SET_TEXT_COLOR_WHITE + " - leave the game");
         System.out.println(SET_TEXT_COLOR_BLUE + "move <FROM> <TO>" + SET_TEXT_COLOR_WHITE + " - make a move (e.d., move e2 e4)");
+        System.out.println(SET_TEXT_COLOR_BLUE + "move <SAN>" + SET_TEXT_COLOR_WHITE + " - make a move in algebraic notation (e.g., move Nf3)");
         System.out.println(SET_TEXT_COLOR_BLUE + "resign" + SET_TEXT_COLOR_WHITE + " - forfeit the game");
         System.out.println(SET_TEXT_COLOR_BLUE + "highlight <POSITION>" + SET_TEXT_COLOR_WHITE + " - show legal moves (e.g., highlight e4)");
         System.out.println(SET_TEXT_COLOR_BLUE + "help" + SET_TEXT_COLOR_WHITE + " - show available commands");
@@ -167,18 +168,26 @@ public class GamePlayUI implements ServerMessageObserver {
     }
 
     private void handleMove(String[] tokens) throws Exception{
-        if(tokens.length != 3){
-            System.out.println("USAGE: move <FROM> <TO> (e.g., move e2 e4)");
-            return;
-        }
-
-        String startPositionCommand = tokens[1];
-        String endPositionCommand = tokens[2];
+        ChessMove move;
+        if(tokens.length == 2){
+            //A single token is a move in algebraic notation, e.g. Nf3 or e8=Q
+            if(currentGame == null){
+                System.out.println("Game not loaded yet. Please wait a moment.");
+                return;
+            }
+            move = PackedMove.toChessMove(San.parse(currentGame, tokens[1]));
+        } else if(tokens.length == 3){
+            String startPositionCommand = tokens[1];
+            String endPositionCommand = tokens[2];
 
-        ChessPosition startPosition = parsePosition(startPositionCommand);
-        ChessPosition endPosition = parsePosition(endPositionCommand);
+            ChessPosition startPosition = parsePosition(startPositionCommand);
+            ChessPosition endPosition = parsePosition(endPositionCommand);
 
-        ChessMove move = new ChessMove(startPosition,endPosition,null);
+            move = ChessMove.of(startPosition,endPosition,null);
+        } else {
+            System.out.println("USAGE: move <FROM> <TO> or move <SAN> (e.g., move e2 e4 or move Nf3)");
+            return;
+        }
 
         MakeMoveCommand moveCommand = new MakeMoveCommand(
                 authToken,
@@ -217,7 +226,7 @@ public class GamePlayUI implements ServerMessageObserver {
         int column = (columnChar - 'a') + 1;
         int row = Character.getNumericValue(rowChar);
 
-        return new ChessPosition(row, column);
+        return ChessPosition.of(row, column);
     }
 
 }
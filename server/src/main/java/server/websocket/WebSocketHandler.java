@@ -11,6 +11,7 @@ import websocket.commands.*;
 import websocket.messages.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -21,10 +22,38 @@ public class WebSocketHandler {
     private final Gson gson = new Gson();
     private final DataAccess dataAccess;
 
+    //Legal moves and status shared by every game, so common positions are only worked out once.
+    //Size in MB can be set with -Dchess.positionCache.mb
+    private final PositionCache positionCache = new PositionCache(
+            Integer.getInteger("chess.positionCache.mb", PositionCache.DEFAULT_MEGABYTES));
+
+    //Endgame tablebases for adjudicating finished endgames, from the directory in
+    //-Dchess.tablebase.dir if set
+    private final Tablebase tablebase = openTablebase(System.getProperty("chess.tablebase.dir"));
+
     public WebSocketHandler(DataAccess dataAccess){
         this.dataAccess = dataAccess;
     }
 
+    //Hit and miss counts for monitoring
+    public PositionCache getPositionCache() {
+        return positionCache;
+    }
+
+    private static Tablebase openTablebase(String directory) {
+        if(directory == null){
+            return null;
+        }
+        try {
+            Tablebase tablebase = Tablebase.open(Path.of(directory));
+            System.out.println("Loaded tablebases: " + tablebase.getTables());
+            return tablebase;
+        } catch (IOException e) {
+            System.out.println("Tablebases not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
     public void onConnect(WsConnectContext ctx){
         System.out.println("Websocket connected: " + ctx.session);
     }
@@ -149,6 +178,7 @@ public class WebSocketHandler {
 
         String username = token.username();
         ChessGame chessGame = game.game();
+        chessGame.setPositionCache(positionCache);
 
         ChessGame.TeamColor currentTurn = chessGame.getTeamTurn();
         boolean isWhitePlayer = username.equals(game.whiteUsername());
@@ -161,26 +191,48 @@ public class WebSocketHandler {
         }
 
         try{
+            //makeMove is the one legality check; the SAN is written from the move it played
             chessGame.makeMove(move);
+            String moveDescription = San.formatLastMove(chessGame);
             dataAccess.updateGame(game);
             broadcastToGame(gameID, new LoadGameMessage(chessGame), null);
 
-            String moveDescription = formatMove(move);
             String notification = username + " moved " + moveDescription;
             broadcastToGame(gameID, new NotificationMessage(notification), session);
 
             ChessGame.TeamColor opponentColor = (currentTurn == ChessGame.TeamColor.WHITE)
                     ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
 
-            if(chessGame.isInCheckmate(opponentColor)){
-                broadcastToGame(gameID, new NotificationMessage(opponentColor + " is in checkmate! " + username + " wins!"), null);
-            } else if (chessGame.isInStalemate(opponentColor)) {
-                broadcastToGame(gameID, new NotificationMessage("Stalemate! Game is a draw."), null);
-            } else if (chessGame.isInCheck(opponentColor)){
-                broadcastToGame(gameID, new NotificationMessage(opponentColor + " is in check!"), null);
+            //One pass works out check, checkmate and stalemate together
+            switch (chessGame.getGameStatus(opponentColor)) {
+                case CHECKMATE -> {
+                    gameOverStatus.put(gameID, true);
+                    broadcastToGame(gameID,
+                            new NotificationMessage(opponentColor + " is in checkmate! " + username + " wins!"), null);
+                }
+                case STALEMATE -> {
+                    gameOverStatus.put(gameID, true);
+                    broadcastToGame(gameID, new NotificationMessage("Stalemate! Game is a draw."), null);
+                }
+                case CHECK -> {
+                    broadcastToGame(gameID, new NotificationMessage(opponentColor + " is in check!"), null);
+                    adjudicate(gameID, chessGame);
+                }
+                case NORMAL -> adjudicate(gameID, chessGame);
+                case THREEFOLD_REPETITION -> {
+                    gameOverStatus.put(gameID, true);
+                    broadcastToGame(gameID, new NotificationMessage("Threefold repetition! Game is a draw."), null);
+                }
+                case FIFTY_MOVE_RULE -> {
+                    gameOverStatus.put(gameID, true);
+                    broadcastToGame(gameID,
+                            new NotificationMessage("Fifty moves without a capture or pawn move! Game is a draw."), null);
+                }
             }
 
 
+        } catch (InvalidMoveException e) {
+            sendMessage(session, new ErrorMessage("Error: Invalid move"));
         } catch (Exception e) {
             sendMessage(session, new ErrorMessage("Error: Invalid move - " + e.getMessage()));
         }
@@ -250,13 +302,24 @@ public class WebSocketHandler {
         broadcastToGame(gameID, new NotificationMessage(notification), null);
     }
 
-    private String formatMove(ChessMove move){
-        return positionToNotation(move.getStartPosition()) + " to " + positionToNotation(move.getEndPosition());
-    }
+    //Ends the game once the tablebase knows how it finishes with best play
+    private void adjudicate(Integer gameID, ChessGame chessGame) throws IOException {
+        int value = tablebase == null ? Tablebase.NONE : tablebase.probe(chessGame);
+        if(value == Tablebase.NONE){
+            return;
+        }
 
-    private String positionToNotation(ChessPosition position){
-        char col = (char) ('a' + position.getColumn() - 1);
-        return "" + col + position.getRow();
+        gameOverStatus.put(gameID, true);
+        if(value == 0){
+            broadcastToGame(gameID, new NotificationMessage("Neither side can force mate. Game is a draw."), null);
+            return;
+        }
+        ChessGame.TeamColor toMove = chessGame.getTeamTurn();
+        ChessGame.TeamColor winner = Tablebase.isWin(value) ? toMove
+                : toMove == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int moves = (Tablebase.plies(value) + 1) / 2;
+        broadcastToGame(gameID, new NotificationMessage(winner + " mates in " + moves + " with best play. "
+                + winner + " wins!"), null);
     }
 
 }
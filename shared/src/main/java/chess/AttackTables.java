@@ -0,0 +1,219 @@
+package chess;
+
+/**
+ * Precomputed attack bitboards, built once when the class loads.
+ * <p>
+ * Knights, kings and pawns use one table entry per square. Rooks and bishops use
+ * magic bitboards: the blockers on a slider's rays are masked out of the occupancy,
+ * multiplied by a per-square magic number and shifted down to an index into a
+ * table of attack sets, so a slider lookup is a mask, a multiply and a shift.
+ */
+public final class AttackTables {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    //Fixed seed so every JVM builds the same tables
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for(int square = 0; square < 64; square++){
+            KNIGHT[square] = Bitboards.knightAttacks(square);
+            KING[square] = Bitboards.kingAttacks(square);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] =
+                    Bitboards.pawnAttacks(ChessGame.TeamColor.WHITE, square);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] =
+                    Bitboards.pawnAttacks(ChessGame.TeamColor.BLACK, square);
+        }
+
+        ROOK_TABLE = buildSlider(true, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildSlider(false, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for(int from = 0; from < 64; from++){
+            for(int to = 0; to < 64; to++){
+                buildLine(from, to);
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * Squares a knight on the given square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Squares a king on the given square attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Squares a pawn of the given color on the given square attacks (captures only)
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * Squares a rook on the given square attacks, up to and including the first blocker
+     */
+    public static long rook(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * Squares a bishop on the given square attacks, up to and including the first blocker
+     */
+    public static long bishop(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * Squares a queen on the given square attacks
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Squares strictly between two squares that share a row, column or diagonal
+     *
+     * @return the squares in between, or 0 if the squares are not lined up
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * The whole row, column or diagonal running through two squares, edge to edge
+     *
+     * @return the line, or 0 if the squares are not lined up
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static void buildLine(int from, int to) {
+        if(from == to){
+            return;
+        }
+        long toBit = Bitboards.bit(to);
+        long fromBit = Bitboards.bit(from);
+
+        //Rays from each end that meet the other end share a line
+        if((Bitboards.rookAttacks(from, 0L) & toBit) != 0){
+            BETWEEN[from][to] = Bitboards.rookAttacks(from, toBit) & Bitboards.rookAttacks(to, fromBit);
+            LINE[from][to] = (Bitboards.rookAttacks(from, 0L) & Bitboards.rookAttacks(to, 0L)) | fromBit | toBit;
+        } else if((Bitboards.bishopAttacks(from, 0L) & toBit) != 0){
+            BETWEEN[from][to] = Bitboards.bishopAttacks(from, toBit) & Bitboards.bishopAttacks(to, fromBit);
+            LINE[from][to] = (Bitboards.bishopAttacks(from, 0L) & Bitboards.bishopAttacks(to, 0L))
+                    | fromBit | toBit;
+        }
+    }
+
+    private static long[] buildSlider(boolean rook, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        //Work out masks and table sizes first so everything fits in one array
+        int size = 0;
+        for(int square = 0; square < 64; square++){
+            masks[square] = relevantOccupancy(square, rook);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        for(int square = 0; square < 64; square++){
+            findMagic(square, rook, masks[square], shifts[square], table, offsets[square], magics);
+        }
+        return table;
+    }
+
+    private static void findMagic(int square, boolean rook, long mask, int shift,
+                                  long[] table, int offset, long[] magics) {
+        int count = 1 << Long.bitCount(mask);
+        long[] occupancies = new long[count];
+        long[] attacks = new long[count];
+
+        //Walk every subset of the mask (carry-rippler) and record the real attacks
+        long subset = 0L;
+        for(int i = 0; i < count; i++){
+            occupancies[i] = subset;
+            attacks[i] = rook ? Bitboards.rookAttacks(square, subset) : Bitboards.bishopAttacks(square, subset);
+            subset = (subset - mask) & mask;
+        }
+
+        int[] epoch = new int[count];
+        for(int attempt = 1; ; attempt++){
+            long magic = nextRandom() & nextRandom() & nextRandom();
+
+            //Skip candidates that can't spread the high bits of the mask
+            if(Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6){
+                continue;
+            }
+
+            boolean works = true;
+            for(int i = 0; i < count && works; i++){
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if(epoch[index] != attempt){
+                    epoch[index] = attempt;
+                    table[offset + index] = attacks[i];
+                } else if(table[offset + index] != attacks[i]){
+                    works = false;
+                }
+            }
+
+            if(works){
+                magics[square] = magic;
+                return;
+            }
+        }
+    }
+
+    //The squares whose occupancy matters to a slider: its rays without the board edge
+    private static long relevantOccupancy(int square, boolean rook) {
+        long attacks = rook ? Bitboards.rookAttacks(square, 0L) : Bitboards.bishopAttacks(square, 0L);
+        long edges = ((Bitboards.RANK_1 | Bitboards.RANK_8) & ~rankOf(square))
+                | ((Bitboards.FILE_A | Bitboards.FILE_H) & ~fileOf(square));
+        return attacks & ~edges;
+    }
+
+    private static long rankOf(int square) {
+        return Bitboards.RANK_1 << (8 * (square >>> 3));
+    }
+
+    private static long fileOf(int square) {
+        return Bitboards.FILE_A << (square & 7);
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
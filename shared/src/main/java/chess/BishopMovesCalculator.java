@@ -1,68 +1,19 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+public class BishopMovesCalculator implements PieceMovesCalculator{
 
-public class BishopMovesCalculator implements PieceMovesCalculator {
-    @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        ChessGame.TeamColor color = board.getPiece(position).getTeamColor();
-
-
-        int[][] directions = {
-                {1,1},{-1,1},{-1,-1},{1,-1}
-        };
-
-
-        for (int[] direction : directions) {
-            int rowDelta = direction[0];
-            int colDelta = direction[1];
-
-            //The new position for the Bishop
-            int newBishopRow = position.getRow() + rowDelta;
-            int newBishopCol = position.getColumn() + colDelta;
-
-            //For each direction, keep moving until you hit something
-            while (isValidPosition(newBishopRow, newBishopCol)) {
-
-                ChessPosition newPosition = new ChessPosition(newBishopRow, newBishopCol);
-                ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
+    public static final BishopMovesCalculator INSTANCE = new BishopMovesCalculator();
 
-                //The new position in the board is null meaning there is no piece
-                if (pieceAtNewPosition == null){
-                    //Add the piece
-                    ChessMove newMove = new ChessMove(position, newPosition, null);
-                    moves.add(newMove);
-
-                }
-
-                //This is an enemy piece. You add the move and then stop.
-                else if (pieceAtNewPosition.getTeamColor() != color) {
-                    //Add the piece
-                    ChessMove newMove = new ChessMove(position, newPosition, null);
-                    moves.add(newMove);
-                    break;
-
-                }
-                //The piece is from your same team. You stop
-                else {
-                    break;
-                }
-
-                //Move to the next square
-                newBishopRow = newBishopRow + rowDelta;
-                newBishopCol = newBishopCol + colDelta;
-            }
+    private BishopMovesCalculator() {
+    }
 
-        }
+    @Override
+    public boolean generate(ChessBoard board, int square, MoveSink sink) {
+        ChessGame.TeamColor color = board.getPiece(square).getTeamColor();
 
-        return moves;
-    }
+        //Slide until the first piece, dropping the last square if it's a team piece
+        long targets = AttackTables.bishop(square, board.getOccupied()) & ~board.getPieces(color);
 
-    //This method checks if we are at the edge of the board
-    private boolean isValidPosition (int row, int col) {
-        return row >=1 && row <= 8 && col >=1 && col <= 8;
+        return PieceMovesCalculator.addMoves(sink, board, square, targets);
     }
 }
@@ -0,0 +1,153 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit bitboards.
+ * <p>
+ * Square 0 is a1 (row 1, column 1), square 7 is h1 and square 63 is h8, so
+ * bit {@code (row - 1) * 8 + (column - 1)} of a bitboard stands for that square.
+ * <p>
+ * The attack methods here compute their answer square by square. They are what
+ * {@link AttackTables} is built from; move generation should use the tables.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final int[][] ROOK_DIRECTIONS = {{0,1},{0,-1},{-1,0},{1,0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1,1},{-1,1},{-1,-1},{1,-1}};
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index (0-63) of the given row and column, which must both
+     * be 1-8; nothing is checked
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the square index (0-63) of the given position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the row (1-8) of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the column (1-8) of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return the position of a square index
+     */
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    /**
+     * @return a bitboard with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the index of the lowest set square, only valid for a non-empty bitboard
+     */
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * Squares a knight on the given square attacks
+     */
+    public static long knightAttacks(int square) {
+        long b = bit(square);
+        long notA = ~FILE_A;
+        long notAB = ~(FILE_A | FILE_B);
+        long notH = ~FILE_H;
+        long notGH = ~(FILE_G | FILE_H);
+        return ((b << 17) & notA) | ((b << 15) & notH) | ((b << 10) & notAB) | ((b << 6) & notGH)
+                | ((b >>> 17) & notH) | ((b >>> 15) & notA) | ((b >>> 10) & notGH) | ((b >>> 6) & notAB);
+    }
+
+    /**
+     * Squares a king on the given square attacks
+     */
+    public static long kingAttacks(int square) {
+        long b = bit(square);
+        long sideways = ((b << 1) & ~FILE_A) | ((b >>> 1) & ~FILE_H);
+        long row = b | sideways;
+        return sideways | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * Squares a pawn of the given color on the given square attacks (captures only)
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        long b = bit(square);
+        if(color == ChessGame.TeamColor.WHITE){
+            return ((b << 9) & ~FILE_A) | ((b << 7) & ~FILE_H);
+        }
+        return ((b >>> 7) & ~FILE_A) | ((b >>> 9) & ~FILE_H);
+    }
+
+    /**
+     * Squares a rook on the given square attacks, stopping at (and including) the first
+     * occupied square in each direction
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return slidingAttacks(square, occupied, ROOK_DIRECTIONS);
+    }
+
+    /**
+     * Squares a bishop on the given square attacks, stopping at (and including) the first
+     * occupied square in each direction
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return slidingAttacks(square, occupied, BISHOP_DIRECTIONS);
+    }
+
+    /**
+     * Squares a queen on the given square attacks
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for(int[] direction: directions){
+            int row = row(square) + direction[0];
+            int col = column(square) + direction[1];
+
+            //Keep going until the edge of the board or the first piece
+            while(row >= 1 && row <= 8 && col >= 1 && col <= 8){
+                long target = bit(square(row, col));
+                attacks |= target;
+                if((occupied & target) != 0){
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
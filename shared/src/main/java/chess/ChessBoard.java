@@ -1,19 +1,57 @@
 package chess;
 
-import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.IntFunction;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The {@code squares} grid is what gets serialized. Alongside it the board keeps
+ * twelve piece bitboards (one per color and piece type) plus occupancy bitboards,
+ * which move generation and check detection work from, and a list of the squares
+ * each team's pieces stand on together with each team's king square.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
 
     ChessPiece[][] squares = new ChessPiece[8][8];
+
+    //FEN letters by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final String FEN_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] FEN_TYPES = ChessPiece.PieceType.values();
+
+    //Bitboards are derived from squares, so they are not serialized
+    private transient long[] pieceBitboards = new long[12];
+    private transient long[] colorBitboards = new long[2];
+    private transient long occupied;
+
+    //Squares holding each team's pieces, in no particular order. listSlots maps a
+    //square back to its slot in its team's list so removal is a swap with the last
+    private transient int[][] pieceLists = new int[2][64];
+    private transient int[] pieceCounts = new int[2];
+    private transient int[] listSlots = new int[64];
+    private transient int[] kingSquares = {-1, -1};
+
+    //Zobrist key of the pieces on the board, kept up to date with every change
+    private transient long zobristKey;
+
+    //Material and piece-square totals (white minus black) and game phase, kept up
+    //to date the same way so evaluating the board costs nothing
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+
+    //Bumped on every change so callers can tell whether cached answers are stale
+    private transient int version;
+
+    //The grid the bitboards were built from. Gson swaps in a new grid when it
+    //deserializes a board, which tells us the bitboards need rebuilding
+    private transient ChessPiece[][] indexedSquares = squares;
+
     public ChessBoard() {
-        
+
     }
 
     /**
@@ -23,8 +61,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        setPiece(Bitboards.square(position), piece);
     }
 
     /**
@@ -44,16 +81,20 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
+        //Start from an empty board
+        squares = new ChessPiece[8][8];
+        rebuildBitboards();
+
         //Place White Pawns
         for(int col = 1; col <= 8; col++){
-            ChessPosition pawnPosition = new ChessPosition(2,col);
-            addPiece(pawnPosition, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            ChessPosition pawnPosition = ChessPosition.of(2,col);
+            addPiece(pawnPosition, ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
         //Place Black Pawns
         for (int col = 1; col <= 8; col++){
-            ChessPosition pawnPosition = new ChessPosition(7, col);
-            addPiece(pawnPosition, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            ChessPosition pawnPosition = ChessPosition.of(7, col);
+            addPiece(pawnPosition, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
         //Place the other pieces
@@ -70,15 +111,470 @@ public class ChessBoard {
 
         for(int col = 1; col <= 8; col++){
             ChessPiece.PieceType piece = backRowPieces[col - 1];
-            ChessPosition whitePiecePosition = new ChessPosition(1, col);
-            ChessPosition blackPiecePosition = new ChessPosition(8, col);
+            ChessPosition whitePiecePosition = ChessPosition.of(1, col);
+            ChessPosition blackPiecePosition = ChessPosition.of(8, col);
 
             //White Pieces
-            addPiece(whitePiecePosition, new ChessPiece(ChessGame.TeamColor.WHITE, piece));
+            addPiece(whitePiecePosition, ChessPiece.of(ChessGame.TeamColor.WHITE, piece));
 
             //Black Pieces
-            addPiece(blackPiecePosition, new ChessPiece(ChessGame.TeamColor.BLACK, piece));
+            addPiece(blackPiecePosition, ChessPiece.of(ChessGame.TeamColor.BLACK, piece));
+
+        }
+    }
+
+    /**
+     * Makes an independent copy of the board. Pieces can't change, so the copy
+     * shares them; the grid rows and the bitboards, piece lists and running totals
+     * are copied as they are rather than rebuilt square by square.
+     *
+     * @return a new board with the same pieces on the same squares
+     */
+    public ChessBoard copy() {
+        ensureIndexed();
+        ChessBoard copy = new ChessBoard();
+        for(int row = 0; row < 8; row++){
+            System.arraycopy(squares[row], 0, copy.squares[row], 0, 8);
+        }
+        copy.indexedSquares = copy.squares;
+        copy.pieceBitboards = pieceBitboards.clone();
+        copy.colorBitboards = colorBitboards.clone();
+        copy.occupied = occupied;
+        copy.pieceLists = new int[][]{pieceLists[0].clone(), pieceLists[1].clone()};
+        copy.pieceCounts = pieceCounts.clone();
+        copy.listSlots = listSlots.clone();
+        copy.kingSquares = kingSquares.clone();
+        copy.zobristKey = zobristKey;
+        copy.middlegameScore = middlegameScore;
+        copy.endgameScore = endgameScore;
+        copy.phase = phase;
+        return copy;
+    }
+
+    /**
+     * Sets up the board from the piece placement field of a FEN string, such as
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR". Anything after the first space
+     * is ignored, so a whole FEN string can be passed. The board is left as it was
+     * if the placement isn't valid.
+     *
+     * @param fen the placement, read straight from the sequence
+     * @throws IllegalArgumentException if it isn't eight rows of eight squares
+     */
+    public void setFen(CharSequence fen) {
+        setPlacement(fen, 0, checkPlacement(fen, 0));
+    }
+
+    /**
+     * Writes the board as the piece placement field of a FEN string
+     *
+     * @return the placement, rows 8 down to 1
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(72);
+        appendFen(fen);
+        return fen.toString();
+    }
+
+    void appendFen(StringBuilder fen) {
+        appendPlacement(fen, this::getPiece);
+    }
+
+    //The placement field for any source of pieces by square index, so a board and a
+    //snapshot write it the same way
+    static void appendPlacement(StringBuilder fen, IntFunction<ChessPiece> pieces) {
+        for(int row = 8; row >= 1; row--){
+            int empty = 0;
+            for(int col = 1; col <= 8; col++){
+                ChessPiece piece = pieces.apply(Bitboards.square(row, col));
+                if(piece == null){
+                    empty++;
+                    continue;
+                }
+                if(empty > 0){
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(fenLetter(piece));
+            }
+            if(empty > 0){
+                fen.append((char) ('0' + empty));
+            }
+            if(row > 1){
+                fen.append('/');
+            }
+        }
+    }
+
+    //Upper case for white, lower case for black
+    static char fenLetter(ChessPiece piece) {
+        char letter = FEN_LETTERS.charAt(piece.getPieceType().ordinal());
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    /**
+     * Checks a FEN piece placement without changing anything
+     *
+     * @param start where the placement starts in the sequence
+     * @return where it ends: the index of the space after it, or the sequence length
+     * @throws IllegalArgumentException if it isn't eight rows of eight squares
+     */
+    static int checkPlacement(CharSequence fen, int start) {
+        int row = 8;
+        int col = 1;
+        int i = start;
+        for(; i < fen.length() && fen.charAt(i) != ' '; i++){
+            char c = fen.charAt(i);
+            if(c == '/'){
+                if(col != 9 || row == 1){
+                    throw new IllegalArgumentException("Bad FEN row " + row + ": " + fen);
+                }
+                row--;
+                col = 1;
+            } else if(c >= '1' && c <= '8'){
+                col += c - '0';
+            } else if(FEN_LETTERS.indexOf(Character.toLowerCase(c)) >= 0){
+                col++;
+            } else {
+                throw new IllegalArgumentException("Bad FEN character '" + c + "': " + fen);
+            }
+            if(col > 9){
+                throw new IllegalArgumentException("Bad FEN row " + row + ": " + fen);
+            }
+        }
+        if(row != 1 || col != 9){
+            throw new IllegalArgumentException("Bad FEN placement: " + fen);
+        }
+        return i;
+    }
+
+    //Puts the pieces of a placement already checked with checkPlacement on the
+    //board, touching only the squares that change
+    void setPlacement(CharSequence fen, int start, int end) {
+        int square = 56;
+        for(int i = start; i < end; i++){
+            char c = fen.charAt(i);
+            if(c == '/'){
+                square -= 16;
+            } else if(c >= '1' && c <= '8'){
+                for(int empty = c - '0'; empty > 0; empty--, square++){
+                    if(getPiece(square) != null){
+                        setPiece(square, null);
+                    }
+                }
+            } else {
+                ChessGame.TeamColor color = Character.isUpperCase(c)
+                        ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                ChessPiece piece = ChessPiece.of(color, FEN_TYPES[FEN_LETTERS.indexOf(Character.toLowerCase(c))]);
+                if(getPiece(square) != piece){
+                    setPiece(square, piece);
+                }
+                square++;
+            }
+        }
+    }
+
+    /**
+     * Gets the piece on a square index (0 is a1, 63 is h8)
+     */
+    ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece (or null) on a square index and keeps the bitboards in step
+     */
+    void setPiece(int square, ChessPiece piece) {
+        ensureIndexed();
+        version++;
+        ChessPiece oldPiece = squares[square >>> 3][square & 7];
+        squares[square >>> 3][square & 7] = piece;
+
+        //Swapping a piece for one of the same team (a promotion) keeps its list slot
+        if(oldPiece != null && piece != null && oldPiece.getTeamColor() == piece.getTeamColor()){
+            long bit = Bitboards.bit(square);
+            pieceBitboards[pieceIndex(oldPiece)] &= ~bit;
+            pieceBitboards[pieceIndex(piece)] |= bit;
+            zobristKey ^= Zobrist.piece(oldPiece, square) ^ Zobrist.piece(piece, square);
+            addScores(pieceIndex(oldPiece), square, -1);
+            addScores(pieceIndex(piece), square, 1);
+            updateKingSquare(oldPiece);
+            updateKingSquare(piece);
+            return;
+        }
+
+        //Take off whatever was there
+        if(oldPiece != null){
+            removeFromIndex(square, oldPiece);
+        }
+
+        //Put the new piece down
+        if(piece != null){
+            addToIndex(square, piece);
+        }
+    }
+
+    /**
+     * Moves the piece on one square to another, capturing whatever is on the
+     * destination. The moving piece keeps its place in its team's piece list,
+     * so a caller can walk that list while trying moves.
+     *
+     * @param from square index of the piece to move
+     * @param to   square index to move it to
+     * @return the captured piece, or null if the destination was empty
+     */
+    ChessPiece movePiece(int from, int to) {
+        ensureIndexed();
+        version++;
+        ChessPiece piece = squares[from >>> 3][from & 7];
+        ChessPiece captured = squares[to >>> 3][to & 7];
+
+        if(captured != null){
+            removeFromIndex(to, captured);
+        }
+
+        //Slide the piece across in the bitboards and its list slot
+        long fromTo = Bitboards.bit(from) | Bitboards.bit(to);
+        int color = piece.getTeamColor().ordinal();
+        int index = pieceIndex(piece);
+        pieceBitboards[index] ^= fromTo;
+        colorBitboards[color] ^= fromTo;
+        occupied ^= fromTo;
+        zobristKey ^= Zobrist.piece(piece, from) ^ Zobrist.piece(piece, to);
+        middlegameScore += PieceSquareTables.middlegame(index, to) - PieceSquareTables.middlegame(index, from);
+        endgameScore += PieceSquareTables.endgame(index, to) - PieceSquareTables.endgame(index, from);
+        listSlots[to] = listSlots[from];
+        pieceLists[color][listSlots[to]] = to;
+        updateKingSquare(piece);
+
+        squares[to >>> 3][to & 7] = piece;
+        squares[from >>> 3][from & 7] = null;
+        return captured;
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board. It does not include whose
+     * turn it is; see {@link ChessGame#getZobristKey()} for that.
+     *
+     * @return 64-bit hash of the piece placement
+     */
+    public long getZobristKey() {
+        ensureIndexed();
+        return zobristKey;
+    }
 
+    /**
+     * Scores the position from material and piece placement, blending middlegame
+     * and endgame values by how much material is left. The parts are kept up to
+     * date as pieces move, so this is only a few arithmetic operations.
+     *
+     * @return the score in centipawns from white's point of view; negative favors black
+     */
+    public int getEvaluation() {
+        ensureIndexed();
+        return PieceSquareTables.taper(middlegameScore, endgameScore, phase);
+    }
+
+    /**
+     * @return a counter that changes whenever a piece is added, removed or moved
+     */
+    int getVersion() {
+        ensureIndexed();
+        return version;
+    }
+
+    /**
+     * @return square index of the team's king, or -1 if the team has no king
+     */
+    int getKingSquare(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * @return how many pieces the team has on the board
+     */
+    int getPieceCount(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return pieceCounts[color.ordinal()];
+    }
+
+    /**
+     * @return square index of the team's piece in the given piece list slot
+     */
+    int getPieceSquare(ChessGame.TeamColor color, int slot) {
+        ensureIndexed();
+        return pieceLists[color.ordinal()][slot];
+    }
+
+    /**
+     * @return bitboard of every piece of the given color and type
+     */
+    long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceBitboards[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every piece of the given color
+     */
+    long getPieces(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    long getOccupied() {
+        ensureIndexed();
+        return occupied;
+    }
+
+    /**
+     * Squares attacked by the piece on the given square. Pawns only count their
+     * capturing diagonals.
+     *
+     * @return the attacked squares, or 0 if the square is empty
+     */
+    long attacksFrom(int square) {
+        ChessPiece piece = getPiece(square);
+        if(piece == null){
+            return 0L;
+        }
+
+        return switch (piece.getPieceType()) {
+            case KING -> AttackTables.king(square);
+            case QUEEN -> AttackTables.queen(square, getOccupied());
+            case BISHOP -> AttackTables.bishop(square, getOccupied());
+            case KNIGHT -> AttackTables.knight(square);
+            case ROOK -> AttackTables.rook(square, getOccupied());
+            case PAWN -> AttackTables.pawn(piece.getTeamColor(), square);
+        };
+    }
+
+    /**
+     * Determines if any piece of the attacking team attacks the given square. Looks
+     * outward from the square: knight and king jumps, pawn diagonals and the slider
+     * rays, so only a handful of table lookups are needed.
+     *
+     * @param square   square index to test
+     * @param attacker the team that might be attacking it
+     * @return True if the square is attacked
+     */
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        long occupiedSquares = getOccupied();
+        long queens = getPieces(attacker, ChessPiece.PieceType.QUEEN);
+
+        return (AttackTables.knight(square) & getPieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0
+                || (AttackTables.pawn(ChessGame.opponent(attacker), square)
+                        & getPieces(attacker, ChessPiece.PieceType.PAWN)) != 0
+                || (AttackTables.king(square) & getPieces(attacker, ChessPiece.PieceType.KING)) != 0
+                || (AttackTables.rook(square, occupiedSquares)
+                        & (getPieces(attacker, ChessPiece.PieceType.ROOK) | queens)) != 0
+                || (AttackTables.bishop(square, occupiedSquares)
+                        & (getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens)) != 0;
+    }
+
+    /**
+     * Every piece of the attacking team that attacks the given square, treating
+     * the board as if only the squares in {@code occupiedSquares} held pieces
+     * (so a piece can be lifted off to see what it was blocking).
+     *
+     * @return bitboard of the attacking pieces
+     */
+    long attackersOf(int square, ChessGame.TeamColor attacker, long occupiedSquares) {
+        long queens = getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (AttackTables.knight(square) & getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (AttackTables.pawn(ChessGame.opponent(attacker), square)
+                        & getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (AttackTables.king(square) & getPieces(attacker, ChessPiece.PieceType.KING))
+                | (AttackTables.rook(square, occupiedSquares)
+                        & (getPieces(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishop(square, occupiedSquares)
+                        & (getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private static int pieceIndex(ChessPiece piece) {
+        return pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    private void ensureIndexed() {
+        if(indexedSquares != squares){
+            rebuildBitboards();
+        }
+    }
+
+    private void rebuildBitboards() {
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        occupied = 0L;
+        pieceLists = new int[2][64];
+        pieceCounts = new int[2];
+        listSlots = new int[64];
+        kingSquares = new int[]{-1, -1};
+        zobristKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        indexedSquares = squares;
+        version++;
+
+        for(int square = 0; square < 64; square++){
+            ChessPiece piece = getPiece(square);
+            if(piece != null){
+                addToIndex(square, piece);
+            }
+        }
+    }
+
+    private void addToIndex(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        int color = piece.getTeamColor().ordinal();
+        pieceBitboards[pieceIndex(piece)] |= bit;
+        colorBitboards[color] |= bit;
+        occupied |= bit;
+        zobristKey ^= Zobrist.piece(piece, square);
+        addScores(pieceIndex(piece), square, 1);
+
+        listSlots[square] = pieceCounts[color];
+        pieceLists[color][pieceCounts[color]++] = square;
+
+        updateKingSquare(piece);
+    }
+
+    private void removeFromIndex(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        int color = piece.getTeamColor().ordinal();
+        pieceBitboards[pieceIndex(piece)] &= ~bit;
+        colorBitboards[color] &= ~bit;
+        occupied &= ~bit;
+        zobristKey ^= Zobrist.piece(piece, square);
+        addScores(pieceIndex(piece), square, -1);
+
+        //Fill the gap with the last piece in the list
+        int slot = listSlots[square];
+        int last = pieceLists[color][--pieceCounts[color]];
+        pieceLists[color][slot] = last;
+        listSlots[last] = slot;
+
+        updateKingSquare(piece);
+    }
+
+    //Adds (sign 1) or takes away (sign -1) a piece's share of the evaluation
+    private void addScores(int index, int square, int sign) {
+        middlegameScore += sign * PieceSquareTables.middlegame(index, square);
+        endgameScore += sign * PieceSquareTables.endgame(index, square);
+        phase += sign * PieceSquareTables.phase(index);
+    }
+
+    private void updateKingSquare(ChessPiece piece) {
+        if(piece.getPieceType() == ChessPiece.PieceType.KING){
+            long kings = pieceBitboards[pieceIndex(piece)];
+            kingSquares[piece.getTeamColor().ordinal()] = kings == 0 ? -1 : Bitboards.first(kings);
         }
     }
 
@@ -88,11 +584,16 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
+
+        //Different keys always mean different boards
+        if(getZobristKey() != that.getZobristKey()){
+            return false;
+        }
         return Objects.deepEquals(squares, that.squares);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Zobrist.fold(getZobristKey());
     }
 }
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -15,6 +14,26 @@ public class ChessGame {
     private ChessBoard board;
     private TeamColor teamTurn;
 
+    //Positions since the last capture or pawn move, for repetitions and the fifty-move rule
+    private PositionHistory positionHistory = new PositionHistory();
+    //Starts at 1 and goes up after each black move, as in FEN
+    private int fullmoveNumber = 1;
+
+    //Moves applied with doMove, so they can be taken back with undoMove
+    private transient UndoStack undoStack = new UndoStack();
+
+    //Scratch list reused by the methods that hand back ChessMove collections
+    private transient MoveList moveBuffer = new MoveList();
+
+    //Last status worked out, good until the board or turn changes
+    private transient GameStatus cachedStatus;
+    private transient TeamColor cachedStatusTeam;
+    private transient ChessBoard cachedStatusBoard;
+    private transient int cachedStatusVersion;
+
+    //Legal moves and status shared with other games, if one has been set
+    private transient PositionCache positionCache;
+
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
@@ -22,6 +41,12 @@ public class ChessGame {
 
     }
 
+    //A game at a position it didn't play to, without setting up a start board first
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -47,6 +72,36 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where a team stands in the game
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        //Drawn: the same position, with the same side to move, has come up three times
+        THREEFOLD_REPETITION,
+        //Drawn: fifty moves by each side without a capture or a pawn move
+        FIFTY_MOVE_RULE
+    }
+
+    //Halfmoves without a capture or pawn move that draw the game
+    static final int FIFTY_MOVE_LIMIT = 100;
+
+    /**
+     * The starting position in FEN. There is no castling or en passant here, so
+     * those fields are always "-".
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    /**
+     * @return the team playing against the given team
+     */
+    static TeamColor opponent(TeamColor team) {
+        return team == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -55,39 +110,64 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        Collection<ChessMove> validMoves = new ArrayList<>();
         ChessPiece piece = board.getPiece(startPosition);
 
         if (piece == null){
             return null;
         }
 
-        //Get all the possible moves the piece can make
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, startPosition);
-
-        //For each possible move, check if it leaves the King in check
-        for(ChessMove move: possibleMoves){
-            ChessPiece movingPiece = board.getPiece(move.getStartPosition());
-            ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-
-            //Make the move
-            board.addPiece(move.getEndPosition(), movingPiece);
-            board.addPiece(move.getStartPosition(), null);
-
-            //Check if this leave the king in check
-            if(!isInCheck(movingPiece.getTeamColor())){
+        legalMovesFrom(piece.getTeamColor(), Bitboards.square(startPosition));
+        return moveBuffer.toChessMoves();
+    }
 
-                //Add to valid moves if the king is safe
-                validMoves.add(move);
+    /**
+     * Gets every legal move for a team
+     *
+     * @param teamColor the team to get moves for
+     * @return every move the team's pieces can legally make
+     */
+    public Collection<ChessMove> allLegalMoves(TeamColor teamColor) {
+        if(positionCache != null){
+            PositionCache.Entry entry = cachedPosition(teamColor);
+            moveBuffer.clear();
+            for(int i = 0; i < entry.moveCount(); i++){
+                moveBuffer.add(entry.move(i));
             }
+        } else {
+            moveBuffer.clear();
+            legalMoves(teamColor, moveBuffer);
+        }
+        return moveBuffer.toChessMoves();
+    }
 
-            //Undo the move
-            board.addPiece(move.getStartPosition(), movingPiece);
-            board.addPiece(move.getEndPosition(), capturedPiece);
+    /**
+     * Passes every legal move for a team to a sink in packed form (see {@link PackedMove}),
+     * stopping early if the sink asks to. A {@link MoveList} sink is not cleared first.
+     *
+     * @param teamColor the team to get moves for
+     * @param sink      where the moves go
+     */
+    public void legalMoves(TeamColor teamColor, MoveSink sink) {
+        MoveGenerator.generate(board, teamColor, -1L, sink);
+    }
 
-        }
+    /**
+     * Determines if a move is legal for the team whose turn it is. Only this one
+     * move is checked; no list of moves is built.
+     *
+     * @param move the move to check
+     * @return True if the move can be made
+     */
+    public boolean isLegal(ChessMove move) {
+        return isOnBoard(move) && MoveGenerator.isLegal(board, teamTurn, PackedMove.fromChessMove(move, board));
+    }
 
-        return validMoves;
+    /**
+     * Determines if a packed move (see {@link PackedMove}) is legal for the team
+     * whose turn it is
+     */
+    public boolean isLegal(int move) {
+        return MoveGenerator.isLegal(board, teamTurn, move);
     }
 
     /**
@@ -97,46 +177,100 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-
-        ChessPosition position = move.getStartPosition();
-        ChessPiece pieceAtPosition = board.getPiece(position);
-
-        //Piece at start position
-        if(pieceAtPosition == null){
+        //Off-board positions would wrap onto real squares once packed
+        if(!isOnBoard(move)){
             throw new InvalidMoveException();
         }
 
-        //It's the right team turns
-        ChessGame.TeamColor color = getTeamTurn();
-        if(pieceAtPosition.getTeamColor() != color){
+        //A piece of the team to move, going somewhere it legally can
+        int packedMove = PackedMove.fromChessMove(move, board);
+        if(!MoveGenerator.isLegal(board, teamTurn, packedMove)){
             throw new InvalidMoveException();
         }
 
-        //The move is in the piece's valid move
-        Collection<ChessMove> validMoves = validMoves(position);
-        if(!validMoves.contains(move)){
-            throw new InvalidMoveException();
-        }
+        doMove(packedMove);
+    }
 
-        ChessPiece movingPiece = board.getPiece(move.getStartPosition());
-        board.addPiece(move.getEndPosition(), movingPiece);
+    private static boolean isOnBoard(ChessMove move) {
+        return move.getStartPosition().isOnBoard() && move.getEndPosition().isOnBoard();
+    }
+
+    /**
+     * Applies a move without checking that it is legal, recording what it changed
+     * so {@link #undoMove()} can take it back. The turn passes to the other team.
+     *
+     * @param move chess move to apply; there must be a piece on its start position
+     */
+    public void doMove(ChessMove move) {
+        doMove(PackedMove.fromChessMove(move, board));
+    }
+
+    /**
+     * Applies a packed move (see {@link PackedMove}) without checking that it is legal
+     *
+     * @param move packed move to apply; there must be a piece on its start square
+     */
+    public void doMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece movingPiece = board.getPiece(from);
+        ChessPiece capturedPiece = board.getPiece(to);
+        undoStack.push(move, movingPiece, capturedPiece, teamTurn);
+        positionHistory.push(getZobristKey(),
+                capturedPiece != null || movingPiece.getPieceType() == ChessPiece.PieceType.PAWN);
+
+        board.movePiece(from, to);
 
         //Check the Pawn promotion
-        if(move.getPromotionPiece() != null){
-            ChessPiece promotionPiece = new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece());
-            board.addPiece(move.getEndPosition(), promotionPiece);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if(promotion != null){
+            board.setPiece(to, ChessPiece.of(movingPiece.getTeamColor(), promotion));
         }
 
-        board.addPiece(move.getStartPosition(), null);
-
         //Change Turns
-        if(getTeamTurn() == TeamColor.WHITE){
-            setTeamTurn(TeamColor.BLACK);
-        } else {
-            setTeamTurn(TeamColor.WHITE);
+        teamTurn = opponent(movingPiece.getTeamColor());
+        if(teamTurn == TeamColor.WHITE){
+            fullmoveNumber++;
+        }
+    }
+
+    /**
+     * Takes back the last move applied with {@link #doMove(ChessMove)} or
+     * {@link #makeMove(ChessMove)}, restoring the board and the turn.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if(undoStack.size() == 0){
+            throw new IllegalStateException("No move to undo");
+        }
+
+        int move = undoStack.topMove();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece movedPiece = undoStack.topMoved();
+        ChessPiece capturedPiece = undoStack.topCaptured();
+
+        //Move the piece back, putting the pawn back if it had promoted
+        board.movePiece(to, from);
+        if(board.getPiece(from) != movedPiece){
+            board.setPiece(from, movedPiece);
+        }
+        if(capturedPiece != null){
+            board.setPiece(to, capturedPiece);
         }
 
+        if(teamTurn == TeamColor.WHITE){
+            fullmoveNumber--;
+        }
+        teamTurn = undoStack.topTeamTurn();
+        undoStack.pop();
+        positionHistory.pop();
+    }
 
+    //The packed move undoMove would take back, or PackedMove.NONE if there is none
+    int lastMove() {
+        return undoStack.size() == 0 ? PackedMove.NONE : undoStack.topMove();
     }
 
     /**
@@ -146,125 +280,329 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        // Find the King's position
-        ChessPosition kingPosition = null;
-
         //Find the King
-        for(int row = 1; row <= 8; row++){
-            for(int col = 1; col <= 8; col++){
+        int kingSquare = board.getKingSquare(teamColor);
+        if(kingSquare < 0){
+            return false;
+        }
 
-                //Get the piece at this position
-                ChessPosition piecePosition = new ChessPosition(row, col);
-                ChessPiece pieceAtPosition = board.getPiece(piecePosition);
+        //Look outward from the King's square for an enemy attacker
+        return board.isSquareAttacked(kingSquare, opponent(teamColor));
+    }
 
-                //Check if it's a King and the right color
-                if(pieceAtPosition != null && pieceAtPosition.getPieceType() == ChessPiece.PieceType.KING
-                        && pieceAtPosition.getTeamColor() == teamColor){
+    /**
+     * Determines if the given team is in checkmate
+     *
+     * @param teamColor which team to check for checkmate
+     * @return True if the specified team is in checkmate
+     */
+    public boolean isInCheckmate(TeamColor teamColor) {
+        return getGameStatus(teamColor) == GameStatus.CHECKMATE;
+    }
 
-                    //Save the position
-                    kingPosition = piecePosition;
-                }
-            }
+    /**
+     * Determines if the given team is in stalemate, which here is defined as having
+     * no valid moves while not in check.
+     *
+     * @param teamColor which team to check for stalemate
+     * @return True if the specified team is in stalemate, otherwise false
+     */
+    public boolean isInStalemate(TeamColor teamColor) {
+        return getGameStatus(teamColor) == GameStatus.STALEMATE;
+    }
 
-        }
+    /**
+     * Gets the status of the team whose turn it is
+     *
+     * @return whether that team is in check, checkmate, stalemate, drawn by repetition
+     * or the fifty-move rule, or none of these
+     */
+    public GameStatus getGameStatus() {
+        return getGameStatus(teamTurn);
+    }
 
-        //Check if an enemy piece can attack the King
-        for(int row = 1; row <= 8; row++){
-            for(int col = 1; col <= 8; col++){
-                ChessPosition piecePosition = new ChessPosition(row, col);
-                ChessPiece pieceAtPosition = board.getPiece(piecePosition);
+    /**
+     * Works out check, checkmate and stalemate for a team in one pass: one check
+     * test, then a search for legal moves that stops at the first one found. The
+     * answer is kept until the board changes. With a {@link PositionCache} set, the
+     * status comes from there instead.
+     * <p>
+     * Checkmate and stalemate come first; otherwise a game whose current position has
+     * come up three times, or that has gone fifty moves without a capture or pawn
+     * move, is drawn for both teams.
+     *
+     * @param teamColor which team to get the status of
+     * @return whether the team is in check, checkmate, stalemate, drawn by repetition
+     * or the fifty-move rule, or none of these
+     */
+    public GameStatus getGameStatus(TeamColor teamColor) {
+        GameStatus status = boardStatus(teamColor);
+        if(status == GameStatus.CHECKMATE || status == GameStatus.STALEMATE){
+            return status;
+        }
+        if(positionHistory.repetitions(getZobristKey()) >= 2){
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        if(positionHistory.getHalfmoveClock() >= FIFTY_MOVE_LIMIT){
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        return status;
+    }
 
-                if(pieceAtPosition != null && pieceAtPosition.getTeamColor() != teamColor){
+    //Check, checkmate or stalemate, which only depend on the board
+    private GameStatus boardStatus(TeamColor teamColor) {
+        if(cachedStatus != null && cachedStatusTeam == teamColor && cachedStatusBoard == board
+                && cachedStatusVersion == board.getVersion()){
+            return cachedStatus;
+        }
 
-                    //Get their possibles moves
-                    Collection<ChessMove> moves = pieceAtPosition.pieceMoves(board, piecePosition);
+        GameStatus status;
+        if(positionCache != null){
+            status = cachedPosition(teamColor).status();
+        } else {
+            status = status(isInCheck(teamColor), MoveGenerator.hasLegalMove(board, teamColor));
+        }
 
-                    for(ChessMove move: moves){
-                        //Check if the move can capture the king
-                        if(move.getEndPosition().equals(kingPosition)){
-                            return true;
-                        }
-                    }
-                }
+        cachedStatus = status;
+        cachedStatusTeam = teamColor;
+        cachedStatusBoard = board;
+        cachedStatusVersion = board.getVersion();
+        return status;
+    }
 
-            }
+    private static GameStatus status(boolean inCheck, boolean canMove) {
+        if(canMove){
+            return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
         }
-
-        return false; //If it gets here, the King is not in check
+        return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
     }
 
     /**
-     * Determines if the given team is in checkmate
+     * Shares a cache of legal moves and status with other games. Move and status
+     * lookups check it before generating anything, and fill it in when they do.
      *
-     * @param teamColor which team to check for checkmate
-     * @return True if the specified team is in checkmate
+     * @param positionCache the cache to use, or null to stop using one
      */
-    public boolean isInCheckmate(TeamColor teamColor) {
-        //Are the in check?
-        if(!isInCheck(teamColor)){
-            return false;
+    public void setPositionCache(PositionCache positionCache) {
+        this.positionCache = positionCache;
+    }
+
+    //Fills the move buffer with the legal moves from one square
+    private void legalMovesFrom(TeamColor color, int square) {
+        if(positionCache == null){
+            moveBuffer.clear();
+            MoveGenerator.generate(board, color, Bitboards.bit(square), moveBuffer);
+            return;
+        }
+        PositionCache.Entry entry = cachedPosition(color);
+        moveBuffer.clear();
+        for(int i = 0; i < entry.moveCount(); i++){
+            int move = entry.move(i);
+            if(PackedMove.from(move) == square){
+                moveBuffer.add(move);
+            }
         }
+    }
 
-        //Do they have any legal moves?
-        for(int row = 1; row <= 8; row++){
-            for (int col = 1; col <= 8; col++){
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece pieceAtPosition = board.getPiece(position);
+    //A team's moves and status from the shared cache, generated and stored on a miss
+    private PositionCache.Entry cachedPosition(TeamColor color) {
+        long key = board.getZobristKey();
+        if(color == TeamColor.BLACK){
+            key ^= Zobrist.side();
+        }
+        PositionCache.Entry entry = positionCache.get(key);
+        if(entry != null){
+            return entry;
+        }
 
-                //Get all possible moves
-                if(pieceAtPosition != null && pieceAtPosition.getTeamColor() == teamColor){
-                    Collection<ChessMove> moves = validMoves(position);
+        moveBuffer.clear();
+        MoveGenerator.generate(board, color, -1L, moveBuffer);
+        GameStatus status = status(isInCheck(color), !moveBuffer.isEmpty());
+        return positionCache.put(key, moveBuffer, status);
+    }
 
-                    //See if it gets them out of check
-                    if(!moves.isEmpty()){
-                        return false;
-                    }
-                }
+    /**
+     * Sets this game's chessboard with a given board
+     *
+     * @param board the new board to use
+     */
+    public void setBoard(ChessBoard board) {
 
-            }
-        }
+        this.board = board;
+        undoStack.clear();
+        positionHistory.reset(0);
+        fullmoveNumber = 1;
+    }
 
-        return true;
+    /**
+     * Creates a game at the position in a FEN string
+     *
+     * @see #setFen(CharSequence)
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        game.setFen(fen);
+        return game;
     }
 
     /**
-     * Determines if the given team is in stalemate, which here is defined as having
-     * no valid moves while not in check.
+     * Sets the game to the position in a FEN string, such as {@link #START_FEN}. The
+     * text is read in place, and the game's own board is reused. The move history
+     * starts over, so earlier moves can't be undone.
+     * <p>
+     * Piece placement and side to move are required; the castling, en passant and
+     * clock fields can be left off from the end. There is no castling or en passant
+     * in this game, so those two fields are checked but have no effect.
      *
-     * @param teamColor which team to check for stalemate
-     * @return True if the specified team is in stalemate, otherwise false
+     * @param fen the position
+     * @throws IllegalArgumentException if the text isn't valid FEN; the game is then
+     *                                  left as it was
      */
-    public boolean isInStalemate(TeamColor teamColor) {
-        if(isInCheck(teamColor)){
-            return false;
+    public void setFen(CharSequence fen) {
+        int placementEnd = ChessBoard.checkPlacement(fen, 0);
+        int i = placementEnd + 1;
+        if(i + 1 > fen.length() || (i + 1 < fen.length() && fen.charAt(i + 1) != ' ')){
+            throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        }
+        TeamColor turn = switch (fen.charAt(i)) {
+            case 'w' -> TeamColor.WHITE;
+            case 'b' -> TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        };
+        i += 2;
+
+        //Castling: "-" or some of KQkq
+        int fieldEnd = fieldEnd(fen, i);
+        for(int j = i; j < fieldEnd; j++){
+            if("KQkq-".indexOf(fen.charAt(j)) < 0 || (fen.charAt(j) == '-' && fieldEnd - i != 1)){
+                throw new IllegalArgumentException("Bad FEN castling: " + fen);
+            }
+        }
+        i = fieldEnd + 1;
+
+        //En passant: "-" or a square on the third or sixth row
+        fieldEnd = fieldEnd(fen, i);
+        if(fieldEnd > i && !(fieldEnd - i == 1 && fen.charAt(i) == '-')
+                && !(fieldEnd - i == 2 && fen.charAt(i) >= 'a' && fen.charAt(i) <= 'h'
+                && (fen.charAt(i + 1) == '3' || fen.charAt(i + 1) == '6'))){
+            throw new IllegalArgumentException("Bad FEN en passant: " + fen);
+        }
+        i = fieldEnd + 1;
+
+        fieldEnd = fieldEnd(fen, i);
+        int halfmoveClock = fieldEnd > i ? parseNumber(fen, i, fieldEnd) : 0;
+        i = fieldEnd + 1;
+        fieldEnd = fieldEnd(fen, i);
+        int fullmove = fieldEnd > i ? parseNumber(fen, i, fieldEnd) : 1;
+        if(fullmove < 1 || fieldEnd < fen.length()){
+            throw new IllegalArgumentException("Bad FEN move number: " + fen);
         }
 
-        for(int row = 1; row <= 8; row++){
-            for(int col = 1; col <= 8; col++){
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece pieceAtPosition = board.getPiece(position);
+        board.setPlacement(fen, 0, placementEnd);
+        teamTurn = turn;
+        undoStack.clear();
+        positionHistory.reset(halfmoveClock);
+        fullmoveNumber = fullmove;
+    }
 
-                if(pieceAtPosition != null && pieceAtPosition.getTeamColor() == teamColor){
-                    Collection<ChessMove> moves = validMoves(position);
+    //Index of the space or end that closes the field starting at start
+    private static int fieldEnd(CharSequence fen, int start) {
+        int end = Math.min(start, fen.length());
+        while(end < fen.length() && fen.charAt(end) != ' '){
+            end++;
+        }
+        return end;
+    }
 
-                    if(!moves.isEmpty()){
-                        return false;
-                    }
-                }
+    private static int parseNumber(CharSequence fen, int start, int end) {
+        if(end - start > 6){
+            throw new IllegalArgumentException("Bad FEN number: " + fen);
+        }
+        int value = 0;
+        for(int i = start; i < end; i++){
+            char c = fen.charAt(i);
+            if(c < '0' || c > '9'){
+                throw new IllegalArgumentException("Bad FEN number: " + fen);
             }
+            value = value * 10 + (c - '0');
         }
+        return value;
+    }
 
-        return true;
+    /**
+     * Writes the game's position as FEN: placement, side to move, castling and en
+     * passant (always "-" here), halfmove clock and move number
+     *
+     * @return the FEN string
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        board.appendFen(fen);
+        fen.append(teamTurn == TeamColor.WHITE ? " w - - " : " b - - ")
+                .append(positionHistory.getHalfmoveClock())
+                .append(' ')
+                .append(fullmoveNumber);
+        return fen.toString();
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Gets the move number as FEN counts it: 1 at the start, going up after each
+     * move by black
      *
-     * @param board the new board to use
+     * @return the move number
      */
-    public void setBoard(ChessBoard board) {
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
 
-        this.board = board;
+    /**
+     * Gets the halfmove clock: moves made in a row, by either team, without a capture
+     * or a pawn move
+     *
+     * @return the clock; the game is drawn when it reaches 100
+     */
+    public int getHalfmoveClock() {
+        return positionHistory.getHalfmoveClock();
+    }
+
+    /**
+     * @return True if the current position, with the same side to move, came up
+     * before since the last capture or pawn move
+     */
+    public boolean isRepeated() {
+        return positionHistory.repetitions(getZobristKey()) > 0;
+    }
+
+    //For a game set up at a position it didn't play to, as setFen does
+    void setClocks(int halfmoveClock, int fullmoveNumber) {
+        positionHistory.reset(halfmoveClock);
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Takes a read-only snapshot of the current position that later moves won't
+     * change, safe to hand to other threads
+     *
+     * @return the position, side to move and clocks as they are now
+     */
+    public PositionView snapshot() {
+        return new PositionView(board, teamTurn, getZobristKey(), positionHistory.getHalfmoveClock(),
+                fullmoveNumber);
+    }
+
+    /**
+     * Makes a separate game at the same position and turn, for work that runs on
+     * several threads at once or has to outlast later moves. The board is copied
+     * as it is rather than rebuilt. Moves can't be undone past the copy, but
+     * repetitions are still seen.
+     *
+     * @return the copy
+     */
+    public ChessGame copy() {
+        ChessGame copy = new ChessGame(board.copy(), teamTurn);
+        copy.positionHistory = positionHistory.copy();
+        copy.fullmoveNumber = fullmoveNumber;
+        return copy;
     }
 
     /**
@@ -277,17 +615,40 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets the Zobrist key of the position: the board's pieces plus whose turn it is
+     *
+     * @return 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey();
+        if(teamTurn == TeamColor.BLACK){
+            key ^= Zobrist.side();
+        }
+        return key;
+    }
+
+    /**
+     * Gets a quick score of the position from material and piece placement, for
+     * showing who stands better. It does not look ahead.
+     *
+     * @return the score in centipawns from white's point of view; negative favors black
+     */
+    public int getEvaluation() {
+        return board.getEvaluation();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(board, chessGame.board) && teamTurn == chessGame.teamTurn;
+        return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, teamTurn);
+        return Zobrist.fold(getZobristKey());
     }
 }
@@ -1,6 +1,14 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents moving a chess piece on a chessboard
@@ -8,12 +16,18 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessMove.GsonAdapter.class)
 public class ChessMove {
 
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    //Shared moves, filled in the first time each one is asked for. Indexed by the
+    //packed move's squares and promotion, so every pair of squares has a slot
+    private static final AtomicReferenceArray<ChessMove> SHARED =
+            new AtomicReferenceArray<>(PackedMove.MOVE_MASK + 1);
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +35,42 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared move between two positions. Moves never change, so one
+     * instance per start, end and promotion is enough.
+     *
+     * @return the shared move, or a new one if either position is off the board
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if(!onBoard(startPosition) || !onBoard(endPosition)){
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        int key = PackedMove.encode(Bitboards.square(startPosition), Bitboards.square(endPosition),
+                promotionPiece, false);
+        return shared(key);
+    }
+
+    /**
+     * Gets the shared move for a packed move (see {@link PackedMove}); flags are ignored
+     */
+    static ChessMove shared(int packedMove) {
+        int key = packedMove & PackedMove.MOVE_MASK;
+        ChessMove move = SHARED.get(key);
+        if(move == null){
+            move = new ChessMove(Bitboards.position(PackedMove.from(key)), Bitboards.position(PackedMove.to(key)),
+                    PackedMove.promotion(key));
+            //Two threads may build the same move; either copy is fine to keep
+            SHARED.compareAndSet(key, null, move);
+        }
+        return move;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -63,6 +113,56 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int result = Objects.hashCode(startPosition);
+        result = 31 * result + Objects.hashCode(endPosition);
+        return 31 * result + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
+    }
+
+    /**
+     * Reads and writes moves in the same shape Gson would, but hands back the
+     * shared instances when reading
+     */
+    static class GsonAdapter extends TypeAdapter<ChessMove> {
+        private final ChessPosition.GsonAdapter positionAdapter = new ChessPosition.GsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException {
+            out.beginObject();
+            if(move.startPosition != null){
+                out.name("startPosition");
+                positionAdapter.write(out, move.startPosition);
+            }
+            if(move.endPosition != null){
+                out.name("endPosition");
+                positionAdapter.write(out, move.endPosition);
+            }
+            if(move.promotionPiece != null){
+                out.name("promotionPiece").value(move.promotionPiece.name());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException {
+            ChessPosition start = null;
+            ChessPosition end = null;
+            ChessPiece.PieceType promotion = null;
+            in.beginObject();
+            while(in.hasNext()){
+                String name = in.nextName();
+                if(in.peek() == JsonToken.NULL){
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "startPosition" -> start = positionAdapter.read(in);
+                    case "endPosition" -> end = positionAdapter.read(in);
+                    case "promotionPiece" -> promotion = ChessPiece.PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return of(start, end, promotion);
+        }
     }
 }
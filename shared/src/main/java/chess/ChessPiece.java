@@ -1,9 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -11,17 +14,39 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPiece.GsonAdapter.class)
 public class ChessPiece {
 
 
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    //One shared instance per color and type, pieces never change once made
+    private static final ChessPiece[] SHARED = new ChessPiece[12];
+
+    static {
+        for(ChessGame.TeamColor color: ChessGame.TeamColor.values()){
+            for(PieceType pieceType: PieceType.values()){
+                SHARED[ChessBoard.pieceIndex(color, pieceType)] = new ChessPiece(color, pieceType);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared piece of the given color and type. Pieces never change, so
+     * one instance per color and type is enough.
+     *
+     * @return the shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return SHARED[ChessBoard.pieceIndex(pieceColor, type)];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -56,20 +81,18 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        PieceMovesCalculator calculator = switch (this.type) {
-            case BISHOP -> new BishopMovesCalculator();
-            case ROOK -> new RookMovesCalculator();
-            case KNIGHT -> new KnightMovesCalculator();
-            case QUEEN -> new QueenMovesCalculator();
-            case KING -> new KingMovesCalculator();
-            case PAWN -> new PawnMovesCalculator();
-        };
-
-        if(calculator == null){
-             return new ArrayList<>();
-        }
+        return PieceMovesCalculator.of(type).pieceMoves(board, myPosition);
+    }
 
-        return calculator.pieceMoves(board, myPosition);
+    /**
+     * Passes the moves this piece could make from a square to a sink in packed form
+     * (see {@link PackedMove}), without collecting them. Like {@link #pieceMoves},
+     * moves that leave the king in danger are included.
+     *
+     * @return False if the sink asked to stop early
+     */
+    public boolean pieceMoves(ChessBoard board, int square, MoveSink sink) {
+        return PieceMovesCalculator.of(type).generate(board, square, sink);
     }
 
     @Override
@@ -83,6 +106,41 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        int colorCode = pieceColor == null ? 0 : pieceColor.ordinal() + 1;
+        int typeCode = type == null ? 0 : type.ordinal() + 1;
+        return 31 * colorCode + typeCode;
+    }
+
+    /**
+     * Reads and writes pieces in the same shape Gson would, but hands back the
+     * shared instances when reading
+     */
+    static class GsonAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.beginObject();
+            out.name("pieceColor").value(piece.pieceColor.name());
+            out.name("type").value(piece.type.name());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            ChessGame.TeamColor color = null;
+            PieceType pieceType = null;
+            in.beginObject();
+            while(in.hasNext()){
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "type" -> pieceType = PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if(color == null || pieceType == null){
+                return new ChessPiece(color, pieceType);
+            }
+            return of(color, pieceType);
+        }
     }
 }
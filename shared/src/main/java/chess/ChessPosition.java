@@ -1,6 +1,11 @@
 package chess;
 
-import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Represents a single square position on a chess board
@@ -8,16 +13,39 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPosition.GsonAdapter.class)
 public class ChessPosition {
 
     private final int row;
     private final int col;
 
+    //One shared instance per square on the board
+    private static final ChessPosition[] SHARED = new ChessPosition[64];
+
+    static {
+        for(int square = 0; square < 64; square++){
+            SHARED[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets the shared position for a square. Positions never change, so one
+     * instance per square is enough.
+     *
+     * @return the shared position, or a new one if the row or column is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if(row < 1 || row > 8 || col < 1 || col > 8){
+            return new ChessPosition(row, col);
+        }
+        return SHARED[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -34,6 +62,13 @@ public class ChessPosition {
         return  col;
     }
 
+    /**
+     * @return True if the row and column are both between 1 and 8
+     */
+    public boolean isOnBoard() {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
     @Override
     public String toString() {
         return String.format("[%d,%d]", row, col);
@@ -50,6 +85,36 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
+    }
+
+    /**
+     * Reads and writes positions in the same shape Gson would, but hands back
+     * the shared instances when reading
+     */
+    static class GsonAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            out.beginObject();
+            out.name("row").value(position.row);
+            out.name("col").value(position.col);
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while(in.hasNext()){
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return of(row, col);
+        }
     }
 }
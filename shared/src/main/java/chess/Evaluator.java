@@ -0,0 +1,30 @@
+package chess;
+
+/**
+ * Static evaluation of a position for the search, in centipawns (a pawn is 100).
+ * <p>
+ * The board keeps its material and piece-square totals up to date as pieces move
+ * (see {@link ChessBoard#getEvaluation()}), so evaluating is a lookup rather than
+ * a walk over the board.
+ */
+public final class Evaluator {
+
+    //Plain material values, for ordering captures. Indexed by PieceType ordinal:
+    //KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluator() {
+    }
+
+    /**
+     * Scores the position from one team's point of view
+     *
+     * @param board position to score
+     * @param color the team the score is for; positive is good for them
+     * @return the score in centipawns
+     */
+    public static int evaluate(ChessBoard board, ChessGame.TeamColor color) {
+        int score = board.getEvaluation();
+        return color == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
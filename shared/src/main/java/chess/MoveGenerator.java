@@ -0,0 +1,292 @@
+package chess;
+
+/**
+ * Generates only legal moves.
+ * <p>
+ * Checkers and pinned pieces are worked out once for the position. A move is
+ * then legal if it is a king move to a square the enemy doesn't attack, or a
+ * move by any other piece that answers every check and stays on its pin line.
+ * No move has to be played out and tested for check.
+ */
+final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move of the team's pieces that start on a square in
+     * {@code fromSquares}.
+     *
+     * @param board       board to generate moves on
+     * @param color       team to move
+     * @param fromSquares bitboard of the starting squares to generate moves for
+     * @param sink        where the legal moves go, packed (see {@link PackedMove})
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor color, long fromSquares,
+                         MoveSink sink) {
+        run(board, color, fromSquares, false, sink);
+    }
+
+    /**
+     * Adds only the team's legal captures and promotions, for searches that skip
+     * quiet moves; no quiet move is generated and thrown away
+     *
+     * @param board board to generate moves on
+     * @param color team to move
+     * @param sink  where the legal moves go, packed (see {@link PackedMove})
+     */
+    static void generateTactical(ChessBoard board, ChessGame.TeamColor color, MoveSink sink) {
+        run(board, color, -1L, true, sink);
+    }
+
+    /**
+     * Determines if the team has any legal move, stopping at the first piece that has one
+     *
+     * @return True if at least one legal move exists
+     */
+    static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        return run(board, color, -1L, false, null);
+    }
+
+    /**
+     * Determines if one move is legal without generating any others: the piece
+     * must be able to reach the square, the move must answer any check, and the
+     * piece must not leave a pin line
+     *
+     * @param move packed move (see {@link PackedMove}); its capture flag is ignored
+     * @return True if the team may make the move
+     */
+    static boolean isLegal(ChessBoard board, ChessGame.TeamColor color, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+        if(piece == null || piece.getTeamColor() != color){
+            return false;
+        }
+
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        long toBit = Bitboards.bit(to);
+        long own = board.getPieces(color);
+        long occupied = board.getOccupied();
+        int king = board.getKingSquare(color);
+        if(from == king){
+            if((AttackTables.king(from) & ~own & toBit) == 0
+                    || board.attackersOf(to, enemy, occupied ^ Bitboards.bit(from)) != 0){
+                return false;
+            }
+        } else {
+            if((pieceTargets(board, from, color, own, occupied) & toBit) == 0){
+                return false;
+            }
+            if(king >= 0){
+                long checkers = board.attackersOf(king, enemy, occupied);
+                if(checkers != 0 && (Long.bitCount(checkers) > 1
+                        || ((checkers | AttackTables.between(king, Bitboards.first(checkers))) & toBit) == 0)){
+                    return false;
+                }
+                //Leaving the line to the king can only matter if a slider on that line is behind
+                long line = AttackTables.line(king, from);
+                if((line & toBit) == 0
+                        && (board.attackersOf(king, enemy, occupied ^ Bitboards.bit(from)) & line) != 0){
+                    return false;
+                }
+            }
+        }
+
+        //A pawn reaching the far row has to promote, and nothing else may
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        long promotionRow = color == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        if(piece.getPieceType() == ChessPiece.PieceType.PAWN && (promotionRow & toBit) != 0){
+            return promotion != null && promotion != ChessPiece.PieceType.KING
+                    && promotion != ChessPiece.PieceType.PAWN;
+        }
+        return promotion == null;
+    }
+
+    /**
+     * Finds the squares the piece on a square could have come from with a move that
+     * captured nothing and didn't promote, ignoring checks and pins. Pieces other
+     * than pawns move the same both ways; a pawn can only have come from behind.
+     * Whether each move back was really legal can be checked with
+     * {@link #isLegal} once the piece is put back on its old square.
+     *
+     * @param square square of the piece; it must not be empty
+     * @return bitboard of the empty squares it could have moved from
+     */
+    static long origins(ChessBoard board, int square) {
+        ChessPiece piece = board.getPiece(square);
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long occupied = board.getOccupied();
+        long empty = ~occupied;
+        if(piece.getPieceType() != ChessPiece.PieceType.PAWN){
+            return pieceTargets(board, square, color, board.getPieces(color), occupied) & empty;
+        }
+
+        //One square back, or two to the start row; never from the back rows
+        long pawn = Bitboards.bit(square);
+        long backOne;
+        long backTwo;
+        if(color == ChessGame.TeamColor.WHITE){
+            backOne = (pawn >>> 8) & empty;
+            backTwo = (backOne >>> 8) & empty & (Bitboards.RANK_1 << 8);
+        } else {
+            backOne = (pawn << 8) & empty;
+            backTwo = (backOne << 8) & empty & (Bitboards.RANK_8 >>> 8);
+        }
+        return (backOne | backTwo) & ~(Bitboards.RANK_1 | Bitboards.RANK_8);
+    }
+
+    //With no sink, returns as soon as one piece has a legal move
+    private static boolean run(ChessBoard board, ChessGame.TeamColor color, long fromSquares,
+                               boolean tacticalOnly, MoveSink sink) {
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        long own = board.getPieces(color);
+        long occupied = board.getOccupied();
+        int king = board.getKingSquare(color);
+
+        //Without a king nothing can be pinned or checked
+        long checkMask = -1L;
+        long pinned = 0L;
+        if(king >= 0){
+            long checkers = board.attackersOf(king, enemy, occupied);
+            if(Long.bitCount(checkers) > 1){
+                checkMask = 0L;
+            } else if(checkers != 0){
+                checkMask = checkers | AttackTables.between(king, Bitboards.first(checkers));
+            }
+            pinned = pinnedPieces(board, king, color, enemy, occupied);
+        }
+
+        //Captures land on an enemy piece; pawns also promote on the far row
+        long captureTargets = tacticalOnly ? board.getPieces(enemy) : -1L;
+        long promotionTargets = tacticalOnly
+                ? captureTargets | (color == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1)
+                : -1L;
+        long pawns = board.getPieces(color, ChessPiece.PieceType.PAWN);
+
+        boolean found = false;
+        for(int slot = 0; slot < board.getPieceCount(color); slot++){
+            int from = board.getPieceSquare(color, slot);
+            if((fromSquares & Bitboards.bit(from)) == 0){
+                continue;
+            }
+
+            long targets;
+            if(from == king){
+                targets = kingTargets(board, from, enemy, own, occupied);
+            } else {
+                long allowed = checkMask;
+                if((pinned & Bitboards.bit(from)) != 0){
+                    allowed &= AttackTables.line(king, from);
+                }
+                targets = pieceTargets(board, from, color, own, occupied) & allowed;
+            }
+            targets &= (pawns & Bitboards.bit(from)) != 0 ? promotionTargets : captureTargets;
+
+            if(targets == 0){
+                continue;
+            }
+            if(sink == null){
+                return true;
+            }
+            found = true;
+            if(!addMoves(board, from, color, targets, sink)){
+                return true;
+            }
+        }
+        return found;
+    }
+
+    //The king can't step onto an attacked square, judged with itself lifted off the board
+    private static long kingTargets(ChessBoard board, int from, ChessGame.TeamColor enemy, long own,
+                                    long occupied) {
+        long candidates = AttackTables.king(from) & ~own;
+        long withoutKing = occupied ^ Bitboards.bit(from);
+        long targets = 0L;
+        while(candidates != 0){
+            int to = Bitboards.first(candidates);
+            candidates &= candidates - 1;
+            if(board.attackersOf(to, enemy, withoutKing) == 0){
+                targets |= Bitboards.bit(to);
+            }
+        }
+        return targets;
+    }
+
+    //Where a piece could go ignoring checks and pins
+    private static long pieceTargets(ChessBoard board, int from, ChessGame.TeamColor color, long own,
+                                     long occupied) {
+        ChessPiece piece = board.getPiece(from);
+        return switch (piece.getPieceType()) {
+            case KING -> AttackTables.king(from) & ~own;
+            case QUEEN -> AttackTables.queen(from, occupied) & ~own;
+            case BISHOP -> AttackTables.bishop(from, occupied) & ~own;
+            case KNIGHT -> AttackTables.knight(from) & ~own;
+            case ROOK -> AttackTables.rook(from, occupied) & ~own;
+            case PAWN -> pawnTargets(board, from, color, occupied);
+        };
+    }
+
+    private static long pawnTargets(ChessBoard board, int from, ChessGame.TeamColor color, long occupied) {
+        long pawn = Bitboards.bit(from);
+        long empty = ~occupied;
+        long forwardOne;
+        long forwardTwo = 0L;
+        if(color == ChessGame.TeamColor.WHITE){
+            forwardOne = (pawn << 8) & empty;
+            if((pawn & (Bitboards.RANK_1 << 8)) != 0){
+                forwardTwo = (forwardOne << 8) & empty;
+            }
+        } else {
+            forwardOne = (pawn >>> 8) & empty;
+            if((pawn & (Bitboards.RANK_8 >>> 8)) != 0){
+                forwardTwo = (forwardOne >>> 8) & empty;
+            }
+        }
+        long captures = AttackTables.pawn(color, from) & board.getPieces(ChessGame.opponent(color));
+        return forwardOne | forwardTwo | captures;
+    }
+
+    //Own pieces that are the only thing between the king and an enemy slider
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor color,
+                                     ChessGame.TeamColor enemy, long occupied) {
+        long enemies = board.getPieces(enemy);
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rook(king, enemies) & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishop(king, enemies)
+                        & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+
+        long pinned = 0L;
+        while(snipers != 0){
+            int sniper = Bitboards.first(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.between(king, sniper) & occupied;
+            if(Long.bitCount(blockers) == 1){
+                pinned |= blockers & board.getPieces(color);
+            }
+        }
+        return pinned;
+    }
+
+    //False if the sink asked to stop
+    private static boolean addMoves(ChessBoard board, int from, ChessGame.TeamColor color, long targets,
+                                    MoveSink sink) {
+        if(board.getPiece(from).getPieceType() != ChessPiece.PieceType.PAWN){
+            return PieceMovesCalculator.addMoves(sink, board, from, targets);
+        }
+
+        //Pawns reaching the far row promote
+        long promotionRow = color == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long occupied = board.getOccupied();
+        while(targets != 0){
+            int to = Bitboards.first(targets);
+            targets &= targets - 1;
+            long toBit = Bitboards.bit(to);
+            if(!PawnMovesCalculator.addMoveWithPromotion(sink, from, to, (occupied & toBit) != 0,
+                    (promotionRow & toBit) != 0)){
+                return false;
+            }
+        }
+        return true;
+    }
+}
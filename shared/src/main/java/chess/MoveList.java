@@ -0,0 +1,90 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable list of packed moves (see {@link PackedMove}) backed by an int array.
+ * Clear and refill the same list instead of allocating a new one per position.
+ */
+public final class MoveList implements MoveSink {
+
+    //No legal position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        moves = new int[DEFAULT_CAPACITY];
+    }
+
+    public void add(int move) {
+        if(size == moves.length){
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Adds the move and always asks for more
+     */
+    @Override
+    public boolean accept(int move) {
+        add(move);
+        return true;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Swaps two entries, for move ordering
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    /**
+     * @return True if the list has a move with the same squares and promotion, ignoring flags
+     */
+    public boolean contains(int move) {
+        for(int i = 0; i < size; i++){
+            if(PackedMove.sameMove(moves[i], move)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unpacks every move into {@link ChessMove} objects
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            chessMoves.add(PackedMove.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
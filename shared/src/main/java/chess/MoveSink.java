@@ -0,0 +1,17 @@
+package chess;
+
+/**
+ * Receives packed moves (see {@link PackedMove}) one at a time as they are generated,
+ * so callers can look at moves without collecting them first.
+ */
+@FunctionalInterface
+public interface MoveSink {
+
+    /**
+     * Takes one generated move
+     *
+     * @param move the packed move
+     * @return True to keep generating, false to stop right away
+     */
+    boolean accept(int move);
+}
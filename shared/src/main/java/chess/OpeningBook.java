@@ -0,0 +1,242 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only opening book: known good moves by position.
+ * <p>
+ * The file uses the Polyglot book layout: 16-byte big-endian entries sorted by
+ * position key, each holding the key, a move, a weight and four unused bytes.
+ * The keys are this package's Zobrist keys ({@link ChessGame#getZobristKey()}),
+ * not Polyglot's own, so books have to be built with {@link OpeningBookBuilder}.
+ * <p>
+ * The file is memory-mapped rather than read, so opening a book costs nothing up
+ * front and a lookup is a binary search over the mapped entries with no allocation.
+ * Lookups from several threads at once are safe.
+ */
+public final class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN
+    };
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file into memory
+     *
+     * @param file the book to open
+     * @return the book
+     * @throws IOException if the file can't be opened or isn't a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() % ENTRY_BYTES != 0 || channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Not an opening book: " + file);
+            }
+            //The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(buffer);
+        }
+    }
+
+    /**
+     * @return how many moves the book holds across all positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if the book has at least one move for the game's position
+     */
+    public boolean contains(ChessGame game) {
+        return firstEntry(game.getZobristKey()) >= 0;
+    }
+
+    /**
+     * Gets the book move played most often, or with the best results, from the game's
+     * position
+     *
+     * @return the move, or null if the position isn't in the book or none of its
+     * book moves is legal there
+     */
+    public ChessMove bestMove(ChessGame game) {
+        //Moves for a position are stored best first
+        long key = game.getZobristKey();
+        int first = firstEntry(key);
+        for(int i = first; i >= 0 && i < size && key(i) == key; i++){
+            int move = legalMove(game, i);
+            if(move != PackedMove.NONE){
+                return PackedMove.toChessMove(move);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks one of the book moves for the game's position, each with a chance in
+     * proportion to its weight, so a bot doesn't always play the same opening
+     *
+     * @param game   the position
+     * @param random a random number; any value is fine
+     * @return the move, or null if the position isn't in the book or none of its
+     * book moves is legal there
+     */
+    public ChessMove pickMove(ChessGame game, long random) {
+        long key = game.getZobristKey();
+        int first = firstEntry(key);
+        if(first < 0){
+            return null;
+        }
+
+        //Moves that can't be played here get no share
+        long total = 0;
+        for(int i = first; i < size && key(i) == key; i++){
+            if(legalMove(game, i) != PackedMove.NONE){
+                total += weight(i);
+            }
+        }
+        if(total == 0){
+            return bestMove(game);
+        }
+
+        long pick = Math.floorMod(random, total);
+        for(int i = first; i < size && key(i) == key; i++){
+            int move = legalMove(game, i);
+            if(move == PackedMove.NONE){
+                continue;
+            }
+            pick -= weight(i);
+            if(pick < 0){
+                return PackedMove.toChessMove(move);
+            }
+        }
+        return bestMove(game);
+    }
+
+    /**
+     * Passes every legal book move for the game's position to a sink, best first,
+     * with its capture flag set from the board
+     *
+     * @return how many moves were passed on
+     */
+    public int moves(ChessGame game, MoveSink sink) {
+        long key = game.getZobristKey();
+        int first = firstEntry(key);
+        int count = 0;
+        for(int i = first; i >= 0 && i < size && key(i) == key; i++){
+            int move = legalMove(game, i);
+            if(move == PackedMove.NONE){
+                continue;
+            }
+            count++;
+            if(!sink.accept(move)){
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the weight of a move in the book for the game's position, or 0 if it
+     * isn't one
+     */
+    public int weight(ChessGame game, ChessMove move) {
+        //Off-board positions would wrap onto real squares once packed
+        if(!move.getStartPosition().isOnBoard() || !move.getEndPosition().isOnBoard()){
+            return 0;
+        }
+        long key = game.getZobristKey();
+        int wanted = PackedMove.encode(Bitboards.square(move.getStartPosition()),
+                Bitboards.square(move.getEndPosition()), move.getPromotionPiece(), false);
+        int first = firstEntry(key);
+        for(int i = first; i >= 0 && i < size && key(i) == key; i++){
+            if(PackedMove.sameMove(packedMove(i), wanted)){
+                return weight(i);
+            }
+        }
+        return 0;
+    }
+
+    //Binary search for the first entry with the key; keys are sorted as unsigned
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(Long.compareUnsigned(key(middle), key) < 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    private long key(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int weight(int index) {
+        return Short.toUnsignedInt(entries.getShort(index * ENTRY_BYTES + 10));
+    }
+
+    private int packedMove(int index) {
+        return fromPolyglot(Short.toUnsignedInt(entries.getShort(index * ENTRY_BYTES + 8)));
+    }
+
+    //A colliding key could name a move that can't be played here; don't pass it on.
+    //Book entries carry no capture flag, so it is taken from the board.
+    //@return the packed move, or PackedMove.NONE if it isn't legal
+    private int legalMove(ChessGame game, int index) {
+        int move = packedMove(index);
+        ChessBoard board = game.getBoard();
+        if(!MoveGenerator.isLegal(board, game.getTeamTurn(), move)){
+            return PackedMove.NONE;
+        }
+        int to = PackedMove.to(move);
+        return PackedMove.encode(PackedMove.from(move), to, PackedMove.promotion(move), board.getPiece(to) != null);
+    }
+
+    /**
+     * Converts a packed move to the Polyglot move layout: destination file and row
+     * in bits 0-5, start file and row in bits 6-11, promotion in bits 12-14
+     */
+    static int toPolyglot(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int promotion = 0;
+        ChessPiece.PieceType type = PackedMove.promotion(move);
+        for(int i = 1; i < PROMOTIONS.length; i++){
+            if(PROMOTIONS[i] == type){
+                promotion = i;
+            }
+        }
+        //Square indexes already put the file in the low three bits and the row above it
+        return to | (from << 6) | (promotion << 12);
+    }
+
+    static int fromPolyglot(int move) {
+        int promotion = (move >>> 12) & 7;
+        return PackedMove.encode((move >>> 6) & 63, move & 63,
+                promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null, false);
+    }
+}
@@ -0,0 +1,168 @@
+package chess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from games in PGN, read with {@link PgnReader}.
+ * <p>
+ * The first plies of each game are replayed, and every move seen from a position
+ * is recorded with a weight from the game's result: two for each win by the side
+ * that played it and one for each draw or unfinished game, as Polyglot books do.
+ * Games are read until a move can't be played under these rules (castling, for
+ * one), so only the part of the game before that makes it into the book.
+ */
+public final class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLY = 20;
+
+    private final int maxPly;
+    //Position key to (Polyglot move to weight)
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private int games;
+
+    /**
+     * @param maxPly how many plies of each game to put in the book
+     */
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Adds every game in a PGN stream
+     *
+     * @return how many games were read
+     * @throws IOException if the stream can't be read
+     */
+    public int addPgn(Reader pgn) throws IOException {
+        PgnReader reader = new PgnReader(pgn);
+        int added = 0;
+        PgnGame game;
+        while((game = reader.next()) != null){
+            addGame(game);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Adds one game read from PGN, starting from its FEN tag if it has one
+     */
+    public void addGame(PgnGame game) {
+        ChessGame start;
+        try {
+            start = game.startingGame();
+        } catch (IllegalArgumentException e) {
+            games++;
+            return;
+        }
+        addGame(start, game.moves(), game.result());
+    }
+
+    /**
+     * Adds one game
+     *
+     * @param sanMoves the moves in SAN, from the starting position
+     * @param result   the PGN result: "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public void addGame(List<String> sanMoves, String result) {
+        addGame(new ChessGame(), sanMoves, result);
+    }
+
+    private void addGame(ChessGame game, List<String> sanMoves, String result) {
+        games++;
+        for(int ply = 0; ply < maxPly && ply < sanMoves.size(); ply++){
+            int move;
+            try {
+                move = San.parse(game, sanMoves.get(ply));
+            } catch (InvalidMoveException e) {
+                return;
+            }
+
+            int weight = weight(result, game.getTeamTurn());
+            weights.computeIfAbsent(game.getZobristKey(), key -> new HashMap<>())
+                    .merge(OpeningBook.toPolyglot(move), weight, Integer::sum);
+            game.doMove(move);
+        }
+    }
+
+    private static int weight(String result, ChessGame.TeamColor mover) {
+        return switch (result) {
+            case "1-0" -> mover == ChessGame.TeamColor.WHITE ? 2 : 0;
+            case "0-1" -> mover == ChessGame.TeamColor.BLACK ? 2 : 0;
+            default -> 1;
+        };
+    }
+
+    /**
+     * @return how many games have been added
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Writes the book, sorted by key and with each position's moves best first
+     *
+     * @return how many entries were written
+     * @throws IOException if the file can't be written
+     */
+    public int write(Path book) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for(Map.Entry<Long, Map<Integer, Integer>> position: weights.entrySet()){
+            for(Map.Entry<Integer, Integer> move: position.getValue().entrySet()){
+                entries.add(new long[]{position.getKey(), move.getKey(), Math.min(move.getValue(), 0xFFFF)});
+            }
+        }
+        entries.sort((a, b) -> {
+            int byKey = Long.compareUnsigned(a[0], b[0]);
+            return byKey != 0 ? byKey : Long.compare(b[2], a[2]);
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * OpeningBook.ENTRY_BYTES);
+        for(long[] entry: entries){
+            buffer.putLong(entry[0]);
+            buffer.putShort((short) entry[1]);
+            buffer.putShort((short) entry[2]);
+            buffer.putInt(0);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(book, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Builds a book from a PGN file.
+     * <p>
+     * Arguments: PGN file, book file to write, then optionally how many plies of
+     * each game to use (default {@value #DEFAULT_MAX_PLY}).
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("Usage: OpeningBookBuilder <games.pgn> <book.bin> [maxPly]");
+            return;
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            builder.addPgn(reader);
+        }
+        int written = builder.write(Path.of(args[1]));
+        System.out.printf("%d games, %d book entries%n", builder.getGames(), written);
+    }
+}
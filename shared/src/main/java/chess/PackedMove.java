@@ -0,0 +1,118 @@
+package chess;
+
+/**
+ * Packs a move into the low 16 bits of an int so move generation can work with
+ * plain ints instead of {@link ChessMove} objects.
+ * <pre>
+ * bits  0-5   start square index (0 is a1, 63 is h8)
+ * bits  6-11  end square index
+ * bits 12-14  promotion piece: 0 for none, otherwise PieceType ordinal + 1
+ * bit  15     set when the move captures a piece
+ * </pre>
+ * Convert to and from {@link ChessMove} only at API edges.
+ */
+public final class PackedMove {
+
+    public static final int NONE = 0;
+    public static final int CAPTURE = 1 << 15;
+
+    //Everything but the flags, enough to tell two moves apart
+    public static final int MOVE_MASK = 0x7FFF;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from      start square index
+     * @param to        end square index
+     * @param promotion piece to promote to, or null
+     * @param capture   whether the move captures a piece
+     * @return the packed move
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, boolean capture) {
+        int move = from | (to << 6);
+        if(promotion != null){
+            move |= (promotion.ordinal() + 1) << 12;
+        }
+        if(capture){
+            move |= CAPTURE;
+        }
+        return move;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move doesn't promote
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 0x7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 0x7000) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return True if both packed moves have the same squares and promotion, ignoring flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return (a & MOVE_MASK) == (b & MOVE_MASK);
+    }
+
+    /**
+     * Packs a {@link ChessMove}. The capture flag is taken from the board. Both
+     * positions must be on the board (see {@link ChessPosition#isOnBoard()}); this
+     * isn't checked, and anything else would wrap onto some other square.
+     */
+    public static int fromChessMove(ChessMove move, ChessBoard board) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        return encode(from, to, move.getPromotionPiece(), board.getPiece(to) != null);
+    }
+
+    /**
+     * Unpacks a move into a {@link ChessMove}
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.shared(move);
+    }
+
+    /**
+     * @return the move in coordinate form, such as "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5);
+        appendSquare(text, from(move));
+        appendSquare(text, to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if(promotion != null){
+            text.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                case KING -> 'k';
+                case PAWN -> 'p';
+            });
+        }
+        return text.toString();
+    }
+
+    private static void appendSquare(StringBuilder text, int square) {
+        text.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
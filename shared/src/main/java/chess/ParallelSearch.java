@@ -0,0 +1,135 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a {@link Search} on several threads at once ("lazy SMP").
+ * <p>
+ * Every thread searches the same root position on its own copy of the game. They
+ * don't split the work between them directly; instead they share one
+ * {@link TranspositionTable}, so each thread finds positions the others have
+ * already searched and skips ahead. Half the helpers start one iteration deeper
+ * than the rest so they are less often in the same place at once. The calling
+ * thread's answer is the one returned, and the helpers are stopped as soon as it
+ * has one.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search main;
+    private final Search[] helpers;
+    private final ExecutorService pool;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    /**
+     * @param threads how many threads to search with, including the calling thread
+     */
+    public ParallelSearch(int threads) {
+        this(threads, TranspositionTable.DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * @param threads        how many threads to search with, including the calling thread
+     * @param hashMegabytes  size of the shared transposition table
+     */
+    public ParallelSearch(int threads, int hashMegabytes) {
+        if(threads < 1){
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        table = new TranspositionTable(hashMegabytes);
+        main = new Search(table);
+        helpers = new Search[threads - 1];
+        for(int i = 0; i < helpers.length; i++){
+            helpers[i] = new Search(table);
+            helpers[i].makeHelper(stopSignal, 1 + (i & 1));
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches for the best move of the team whose turn it is
+     *
+     * @param game   the game to search; it is left as it was
+     * @param limits when to stop; node limits count the calling thread's nodes only
+     * @return the best move found, with the nodes searched by every thread
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        stopSignal.set(false);
+
+        //Helpers run until the main search is done, or their own depth or time runs out
+        SearchLimits helperLimits = new SearchLimits(limits.maxDepth(), 0, limits.maxMillis());
+        List<Future<SearchResult>> futures = new ArrayList<>(helpers.length);
+        for(Search helper: helpers){
+            ChessGame copy = game.copy();
+            futures.add(pool.submit(() -> helper.search(copy, helperLimits)));
+        }
+
+        SearchResult result;
+        try {
+            result = main.search(game, limits);
+        } finally {
+            stopSignal.set(true);
+        }
+
+        long nodes = result.nodes();
+        for(Future<SearchResult> future: futures){
+            try {
+                nodes += future.get().nodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * @param tablebase endgames to look up instead of searching, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        main.setTablebase(tablebase);
+        for(Search helper: helpers){
+            helper.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * @return how many threads search, including the calling thread
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Empties the shared table, for starting over on an unrelated game
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stops the helper threads
+     */
+    @Override
+    public void close() {
+        if(pool != null){
+            pool.shutdownNow();
+        }
+    }
+}
@@ -1,125 +1,71 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
 public class PawnMovesCalculator implements PieceMovesCalculator{
-    @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        ChessPiece piece = board.getPiece(position);
 
-        //Calculate direction for white or black pawn
-        int direction = 0;
-        if(piece.getTeamColor() == ChessGame.TeamColor.WHITE){
-            direction = 1;
-        } else {
-            direction = -1;
-        }
+    public static final PawnMovesCalculator INSTANCE = new PawnMovesCalculator();
 
-        //Calculate the initial row for white or black pawn
-        int startRow = 0;
-        if(piece.getTeamColor() == ChessGame.TeamColor.WHITE){
-            startRow = 2;
-        } else {
-            startRow = 7;
-        }
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private PawnMovesCalculator() {
+    }
 
-        //Calculate the promotion for white or black pawn
-        int promotionRow = 0;
-        if(piece.getTeamColor() == ChessGame.TeamColor.WHITE){
-            promotionRow = 8;
+    @Override
+    public boolean generate(ChessBoard board, int square, MoveSink sink) {
+        ChessGame.TeamColor color = board.getPiece(square).getTeamColor();
+        long pawn = Bitboards.bit(square);
+        long empty = ~board.getOccupied();
+
+        //Calculate the initial row and promotion row for white or black pawn
+        long startRow;
+        long promotionRow;
+        long forwardOne;
+        if(color == ChessGame.TeamColor.WHITE){
+            startRow = Bitboards.RANK_1 << 8;
+            promotionRow = Bitboards.RANK_8;
+            forwardOne = (pawn << 8) & empty;
         } else {
-            promotionRow = 1;
+            startRow = Bitboards.RANK_8 >>> 8;
+            promotionRow = Bitboards.RANK_1;
+            forwardOne = (pawn >>> 8) & empty;
         }
 
-        //FORWARD 1 SQUARE
-        //Get current row and column
-        int currentRow = position.getRow();
-        int currentCol = position.getColumn();
-
-        //Get new position for moving forward 1 square
-        int newPawnRow = currentRow + direction;
-        int newPawnCol = currentCol;
-
-        //Checking if the square didn't pass the edge of the board
-        if(isValidPosition(newPawnRow, newPawnCol)){
-            ChessPosition newPosition = new ChessPosition(newPawnRow, newPawnCol);
-            ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
-
-            //The square is empty. Add the move
-            if(pieceAtNewPosition == null){
-                addMoveWithPromotion(moves, position, newPosition, newPawnRow, promotionRow);
-            }
-
-            //FORWARD 2 SQUARES
-
-            //Checking to see if the Pawn is in the starting row
-            if(currentRow == startRow){
-                int twoSquareRow = currentRow + (2*direction);
-                int twoSquareCol = currentCol;
-
-                ChessPosition newTwoSquarePosition = new ChessPosition(twoSquareRow, twoSquareCol);
-                ChessPiece twoSquarePieceAtNewPosition = board.getPiece(newTwoSquarePosition);
-
-                //Checking that the 1st and 2nd square are empty
-                if(pieceAtNewPosition == null && twoSquarePieceAtNewPosition == null){
-                    addMoveWithPromotion(moves, position, newTwoSquarePosition, twoSquareRow, promotionRow);
-                }
-            }
-
-            //CAPTURE
-            //Left Diagonal
-            int leftRow = currentRow + direction;
-            int leftCol = currentCol - 1;
-
-            //Check if the left diagonal is off the board
-            if(isValidPosition(leftRow, leftCol)){
-                ChessPosition leftDiagonalPosition = new ChessPosition(leftRow, leftCol);
-                ChessPiece leftDiagonalPiece = board.getPiece(leftDiagonalPosition);
-
-                //Checking that there is an enemy piece to add the move
-                if(leftDiagonalPiece != null && piece.getTeamColor() != leftDiagonalPiece.getTeamColor()){
-                    addMoveWithPromotion(moves, position, leftDiagonalPosition, leftRow, promotionRow);
-                }
-            }
-
-            //Right Diagonal
-            int rightRow = currentRow + direction;
-            int rightCol = currentCol + 1;
+        //FORWARD 2 SQUARES, only from the starting row and only if both squares are empty
+        long forwardTwo = 0L;
+        if((pawn & startRow) != 0 && forwardOne != 0){
+            forwardTwo = (color == ChessGame.TeamColor.WHITE ? forwardOne << 8 : forwardOne >>> 8) & empty;
+        }
 
-            //Check if the right diagonal is off the board
-            if(isValidPosition(rightRow, rightCol)){
-                ChessPosition rightDiagonalPosition = new ChessPosition(rightRow, rightCol);
-                ChessPiece rightDiagonalPiece = board.getPiece(rightDiagonalPosition);
+        //CAPTURE, only onto enemy pieces
+        long captures = AttackTables.pawn(color, square) & board.getPieces(ChessGame.opponent(color));
 
-                //Checking that there is an enemy piece to add the move
-                if(rightDiagonalPiece != null && piece.getTeamColor() != rightDiagonalPiece.getTeamColor()){
-                    addMoveWithPromotion(moves, position, rightDiagonalPosition, rightRow, promotionRow);
-                }
+        long targets = forwardOne | forwardTwo | captures;
+        while(targets != 0){
+            int target = Bitboards.first(targets);
+            long targetBit = Bitboards.bit(target);
+            if(!addMoveWithPromotion(sink, square, target, (targetBit & captures) != 0,
+                    (targetBit & promotionRow) != 0)){
+                return false;
             }
-
+            targets &= targets - 1;
         }
-
-        return moves;
-    }
-
-    private boolean isValidPosition(int row, int col){
-        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+        return true;
     }
 
-    private void addMoveWithPromotion(Collection<ChessMove> moves, ChessPosition start, ChessPosition end,
-                                      int endRow, int promotionRow){
+    static boolean addMoveWithPromotion(MoveSink sink, int start, int end, boolean capture, boolean promotes){
         //Edge of the board
-        if(endRow == promotionRow){
-            moves.add(new ChessMove(start, end, ChessPiece.PieceType.QUEEN));
-            moves.add(new ChessMove(start, end, ChessPiece.PieceType.ROOK));
-            moves.add(new ChessMove(start, end, ChessPiece.PieceType.BISHOP));
-            moves.add(new ChessMove(start, end, ChessPiece.PieceType.KNIGHT));
-
-        } else {
-            moves.add(new ChessMove(start, end, null));
+        if(promotes){
+            for(ChessPiece.PieceType promotion: PROMOTIONS){
+                if(!sink.accept(PackedMove.encode(start, end, promotion, capture))){
+                    return false;
+                }
+            }
+            return true;
         }
+        return sink.accept(PackedMove.encode(start, end, null, capture));
     }
 }
@@ -0,0 +1,151 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the move paths from a position down to a fixed depth ("perft").
+ * <p>
+ * The counts for well known positions are published, so a mismatch means the
+ * move generator is wrong somewhere. These rules have no castling or en passant,
+ * so published counts only hold until those first become possible (depth 4 from
+ * the start; depth 5 comes out 258 en passant captures short of the usual
+ * 4,865,609). {@link #divide} breaks the count down by
+ * first move to narrow down where. The counts also make a simple throughput
+ * benchmark: run {@link #main} to print nodes per second.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes below a position, playing moves on the game and taking
+     * them back. The game is left as it was.
+     *
+     * @param game  position to count from, with the side to move taken from the game
+     * @param depth how many plies to look ahead
+     * @return number of move paths of exactly that length
+     */
+    public static long perft(ChessGame game, int depth) {
+        if(depth <= 0){
+            return 1;
+        }
+        return count(game, depth, newLists(depth));
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move of the side to move
+     *
+     * @return leaf counts in move generation order, keyed by move in coordinate
+     * form (see {@link PackedMove#toString(int)})
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(game.getTeamTurn(), rootMoves);
+
+        MoveList[] lists = newLists(depth);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for(int i = 0; i < rootMoves.size(); i++){
+            int move = rootMoves.get(i);
+            game.doMove(move);
+            counts.put(PackedMove.toString(move), depth <= 1 ? 1 : count(game, depth - 1, lists));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Same count as {@link #perft}, with the root moves split across a fork-join pool.
+     * Each root move is searched on its own copy of the position.
+     *
+     * @param pool pool to run on, such as {@link ForkJoinPool#commonPool()}
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        if(depth <= 1){
+            return perft(game, depth);
+        }
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(game.getTeamTurn(), rootMoves);
+
+        List<RecursiveTask<Long>> tasks = new ArrayList<>(rootMoves.size());
+        for(int i = 0; i < rootMoves.size(); i++){
+            ChessGame copy = game.copy();
+            copy.doMove(rootMoves.get(i));
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Long compute() {
+                    return perft(copy, depth - 1);
+                }
+            });
+        }
+
+        return pool.invoke(new RecursiveTask<Long>() {
+            @Override
+            protected Long compute() {
+                invokeAll(tasks);
+                long nodes = 0;
+                for(RecursiveTask<Long> task: tasks){
+                    nodes += task.join();
+                }
+                return nodes;
+            }
+        });
+    }
+
+    private static long count(ChessGame game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        moves.clear();
+        game.legalMoves(game.getTeamTurn(), moves);
+
+        //Every legal move is a leaf, no need to play them
+        if(depth == 1){
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            game.doMove(moves.get(i));
+            nodes += count(game, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    //One reusable list per ply so the search doesn't allocate
+    private static MoveList[] newLists(int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0) + 1];
+        for(int i = 0; i < lists.length; i++){
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    /**
+     * Runs perft from the starting position and prints the divide, node count and
+     * nodes per second.
+     * <p>
+     * Arguments: depth (default 5), then "parallel" to split root moves across cores.
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        boolean parallel = args.length > 1 && args[1].equalsIgnoreCase("parallel");
+        ChessGame game = new ChessGame();
+
+        if(!parallel){
+            for(Map.Entry<String, Long> entry: divide(game, depth).entrySet()){
+                System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+            }
+        }
+
+        long start = System.nanoTime();
+        long nodes = parallel ? perft(game, depth, ForkJoinPool.commonPool()) : perft(game, depth);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("depth %d: %d nodes in %.3f s (%.0f nodes/s)%n", depth, nodes, seconds,
+                nodes / seconds);
+    }
+}
@@ -0,0 +1,32 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read by a {@link PgnReader}
+ *
+ * @param tags   the tag pairs, such as "White" or "Result", in the order they were read
+ * @param moves  the main line in SAN, without move numbers, comments or variations
+ * @param result the result the movetext ends with ("1-0", "0-1", "1/2-1/2" or "*"),
+ *               or the Result tag if the movetext has none
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+
+    /**
+     * @return the value of a tag, or null if the game doesn't have it
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return a new game at the position the moves start from: the FEN tag if there
+     * is one, otherwise the usual starting position
+     * @throws IllegalArgumentException if the FEN tag can't be read
+     */
+    public ChessGame startingGame() {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+    }
+}
@@ -0,0 +1,198 @@
+package chess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Replays games from a {@link PgnReader} on a fork-join pool, checking every move
+ * against the rules, and hands each replayed game to a consumer.
+ * <p>
+ * Games are read on the calling thread and replayed on the pool. At most a fixed
+ * number of games are waiting or being replayed at once, so reading stops and
+ * waits when the pool falls behind instead of piling the whole archive up in
+ * memory. The consumer is called on the pool's threads, in no particular order,
+ * and must be safe to call from several threads at once.
+ */
+public final class PgnImporter {
+
+    public static final int DEFAULT_MAX_PENDING = 1024;
+
+    private final ForkJoinPool pool;
+    private final int maxPending;
+
+    /**
+     * A game after replaying
+     *
+     * @param pgn   the game as read
+     * @param game  the position after the last move that could be played; its moves
+     *              can be undone back to the start
+     * @param moves the packed moves played (see {@link PackedMove})
+     * @param error why replaying stopped early, or null if every move was played
+     */
+    public record Replay(PgnGame pgn, ChessGame game, int[] moves, String error) {
+
+        /**
+         * @return True if every move in the game was legal
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * What an import did
+     *
+     * @param games   games read
+     * @param invalid games with a move that couldn't be played
+     * @param moves   moves replayed
+     * @param nanos   time spent, in nanoseconds
+     */
+    public record Stats(long games, long invalid, long moves, long nanos) {
+
+        /**
+         * @return games imported per second
+         */
+        public long gamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1_000_000_000L / nanos;
+        }
+    }
+
+    /**
+     * @param pool       pool to replay on, such as {@link ForkJoinPool#commonPool()}
+     * @param maxPending most games read but not yet finished at any time
+     */
+    public PgnImporter(ForkJoinPool pool, int maxPending) {
+        if(maxPending < 1){
+            throw new IllegalArgumentException("maxPending must be at least 1");
+        }
+        this.pool = pool;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Reads and replays every remaining game. Returns once every game has been
+     * handed to the consumer.
+     *
+     * @param consumer given each game once it has been replayed, valid or not
+     * @return counts and timing
+     * @throws IOException if the input can't be read
+     * @throws RuntimeException whatever the consumer threw first; reading stops then
+     */
+    public Stats importGames(PgnReader reader, Consumer<? super Replay> consumer) throws IOException {
+        Semaphore pending = new Semaphore(maxPending);
+        LongAdder invalid = new LongAdder();
+        LongAdder moves = new LongAdder();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long games = 0;
+        long start = System.nanoTime();
+
+        try {
+            PgnGame pgn;
+            while(failure.get() == null && (pgn = reader.next()) != null){
+                pending.acquireUninterruptibly();
+                games++;
+                PgnGame next = pgn;
+                Runnable task = () -> {
+                    try {
+                        Replay replay = replay(next);
+                        if(!replay.isValid()){
+                            invalid.increment();
+                        }
+                        moves.add(replay.moves().length);
+                        consumer.accept(replay);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        pending.release();
+                    }
+                };
+                try {
+                    pool.execute(task);
+                } catch (RuntimeException e) {
+                    pending.release();
+                    throw e;
+                }
+            }
+        } finally {
+            //Wait for everything in flight, even if reading failed
+            pending.acquireUninterruptibly(maxPending);
+            pending.release(maxPending);
+        }
+
+        if(failure.get() != null){
+            throw failure.get();
+        }
+        return new Stats(games, invalid.sum(), moves.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Plays through a game's moves from its starting position
+     *
+     * @return the game, stopped at the first move that can't be played
+     */
+    public static Replay replay(PgnGame pgn) {
+        ChessGame game;
+        try {
+            game = pgn.startingGame();
+        } catch (IllegalArgumentException e) {
+            return new Replay(pgn, new ChessGame(), new int[0], e.getMessage());
+        }
+
+        int[] played = new int[pgn.moves().size()];
+        for(int ply = 0; ply < played.length; ply++){
+            try {
+                played[ply] = San.parse(game, pgn.moves().get(ply));
+            } catch (InvalidMoveException e) {
+                return new Replay(pgn, game, Arrays.copyOf(played, ply), e.getMessage());
+            }
+            game.doMove(played[ply]);
+        }
+        return new Replay(pgn, game, played, null);
+    }
+
+    /**
+     * Replays a PGN file and prints how fast it went.
+     * <p>
+     * Arguments: the PGN file, then optionally how many threads to use (default all
+     * of them).
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1){
+            System.err.println("Usage: PgnImporter <games.pgn> [threads]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        PgnImporter importer = new PgnImporter(pool, DEFAULT_MAX_PENDING);
+
+        Stats stats;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() <= Integer.MAX_VALUE){
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                stats = importer.importGames(new PgnReader(buffer), replay -> { });
+            } else {
+                //Too big for one mapping
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    stats = importer.importGames(new PgnReader(reader), replay -> { });
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("%d games (%d invalid), %d moves in %.1f s: %d games/s%n", stats.games(),
+                stats.invalid(), stats.moves(), stats.nanos() / 1e9, stats.gamesPerSecond());
+    }
+}
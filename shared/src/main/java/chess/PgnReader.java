@@ -0,0 +1,247 @@
+package chess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads games from PGN one at a time, so an archive of any size can be gone through
+ * without holding more than one game in memory.
+ * <p>
+ * Input comes from a {@link Reader}, read in large blocks, or from a
+ * {@link ByteBuffer} such as a memory-mapped file, read in place as UTF-8. Only
+ * the main line of each game is kept: move numbers, comments, variations, numeric
+ * annotations and escape lines are skipped as they are read. Moves are not checked
+ * here; see {@link PgnImporter} for replaying them.
+ * <p>
+ * A reader is not safe to use from more than one thread.
+ */
+public final class PgnReader {
+
+    private static final int BLOCK_CHARS = 64 * 1024;
+    private static final int NONE = -1;
+
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final char[] block;
+    private int position;
+    private int limit;
+
+    //One character read too far, to be handed out again
+    private int pushedBack = NONE;
+    //Whether the last character read began a line, for "%" escape lines
+    private boolean lineStart;
+    private boolean afterNewline = true;
+
+    private final StringBuilder token = new StringBuilder();
+
+    /**
+     * @param reader PGN text; the caller closes it
+     */
+    public PgnReader(Reader reader) {
+        this.reader = reader;
+        this.bytes = null;
+        this.block = new char[BLOCK_CHARS];
+    }
+
+    /**
+     * @param bytes PGN in UTF-8 (or ASCII), read from its position to its limit
+     */
+    public PgnReader(ByteBuffer bytes) {
+        this.reader = null;
+        this.bytes = bytes;
+        this.block = null;
+    }
+
+    /**
+     * Reads the next game
+     *
+     * @return the game, or null at the end of the input
+     * @throws IOException if the input can't be read
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        String result = null;
+        boolean inMoves = false;
+        int variationDepth = 0;
+
+        int c;
+        while((c = read()) != NONE){
+            if(Character.isWhitespace(c) || c == '.'){
+                continue;
+            }
+            if(c == '%' && lineStart){
+                skipPast('\n');
+                continue;
+            }
+            if(c == '['){
+                //A tag after movetext starts the next game
+                if(inMoves){
+                    pushedBack = c;
+                    break;
+                }
+                readTag(tags);
+                continue;
+            }
+
+            inMoves = true;
+            switch (c) {
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                case '(' -> variationDepth++;
+                case ')' -> variationDepth = Math.max(variationDepth - 1, 0);
+                case '$' -> readToken(c);
+                default -> {
+                    readToken(c);
+                    if(variationDepth > 0 || isMoveNumber(token)){
+                        continue;
+                    }
+                    String text = token.toString();
+                    if(isResult(text)){
+                        result = text;
+                    } else {
+                        moves.add(text);
+                    }
+                }
+            }
+            if(result != null){
+                break;
+            }
+        }
+
+        if(!inMoves && tags.isEmpty()){
+            return null;
+        }
+        if(result == null){
+            result = tags.getOrDefault("Result", "*");
+        }
+        return new PgnGame(tags, moves, result);
+    }
+
+    /**
+     * Reads every remaining game, handing each to a consumer as soon as it's read
+     *
+     * @return how many games were read
+     * @throws IOException if the input can't be read
+     */
+    public long forEach(Consumer<? super PgnGame> consumer) throws IOException {
+        long games = 0;
+        PgnGame game;
+        while((game = next()) != null){
+            consumer.accept(game);
+            games++;
+        }
+        return games;
+    }
+
+    private int read() throws IOException {
+        if(pushedBack != NONE){
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+
+        int c;
+        if(bytes != null){
+            c = bytes.hasRemaining() ? bytes.get() & 0xFF : NONE;
+        } else {
+            if(position == limit){
+                limit = Math.max(reader.read(block, 0, block.length), 0);
+                position = 0;
+            }
+            c = position < limit ? block[position++] : NONE;
+        }
+        lineStart = afterNewline;
+        afterNewline = c == '\n';
+        return c;
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while(c != NONE && c != end);
+    }
+
+    //Reads the rest of a symbol into token, leaving the character after it unread
+    private void readToken(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) first);
+        int c;
+        while((c = read()) != NONE){
+            if(isDelimiter(c)){
+                pushedBack = c;
+                break;
+            }
+            token.append((char) c);
+        }
+    }
+
+    //[Name "value"], with \" and \\ escapes in the value
+    private void readTag(Map<String, String> tags) throws IOException {
+        int c = read();
+        while(c != NONE && Character.isWhitespace(c)){
+            c = read();
+        }
+        token.setLength(0);
+        while(c != NONE && c != '"' && c != ']' && !Character.isWhitespace(c)){
+            token.append((char) c);
+            c = read();
+        }
+        String name = token.toString();
+
+        while(c != NONE && c != '"' && c != ']'){
+            c = read();
+        }
+        if(c == '"'){
+            token.setLength(0);
+            boolean wide = false;
+            while((c = read()) != NONE && c != '"'){
+                if(c == '\\'){
+                    c = read();
+                    if(c == NONE){
+                        break;
+                    }
+                }
+                wide |= c > 0x7F;
+                token.append((char) c);
+            }
+            String value = token.toString();
+            //Bytes were read one to a char; put multi-byte characters back together
+            if(wide && bytes != null){
+                value = new String(value.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+            }
+            if(!name.isEmpty()){
+                tags.put(name, value);
+            }
+            skipPast(']');
+        }
+    }
+
+    private static boolean isDelimiter(int c) {
+        return Character.isWhitespace(c) || ".{}()[];$".indexOf(c) >= 0;
+    }
+
+    private static boolean isMoveNumber(CharSequence token) {
+        for(int i = 0; i < token.length(); i++){
+            if(!Character.isDigit(token.charAt(i))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isResult(String token) {
+        return switch (token) {
+            case "1-0", "0-1", "1/2-1/2", "*" -> true;
+            default -> false;
+        };
+    }
+}
@@ -3,5 +3,50 @@ package chess;
 import java.util.Collection;
 
 public interface PieceMovesCalculator {
-    Collection<ChessMove> pieceMoves (ChessBoard board, ChessPosition position);
+
+    /**
+     * Passes the packed moves (see {@link PackedMove}) of the piece on a square to a sink,
+     * without checking whether they leave the king in danger
+     *
+     * @return False if the sink asked to stop before every move was passed on
+     */
+    boolean generate(ChessBoard board, int square, MoveSink sink);
+
+    default Collection<ChessMove> pieceMoves (ChessBoard board, ChessPosition position) {
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(position), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Gets the calculator for a type of piece. Calculators hold no state, so one
+     * of each is shared by every caller.
+     */
+    static PieceMovesCalculator of(ChessPiece.PieceType type) {
+        return switch (type) {
+            case BISHOP -> BishopMovesCalculator.INSTANCE;
+            case ROOK -> RookMovesCalculator.INSTANCE;
+            case KNIGHT -> KnightMovesCalculator.INSTANCE;
+            case QUEEN -> QueenMovesCalculator.INSTANCE;
+            case KING -> KingMovesCalculator.INSTANCE;
+            case PAWN -> PawnMovesCalculator.INSTANCE;
+        };
+    }
+
+    /**
+     * Passes a packed move from the start square to every square in the target bitboard
+     *
+     * @return False if the sink asked to stop
+     */
+    static boolean addMoves(MoveSink sink, ChessBoard board, int from, long targets) {
+        long occupied = board.getOccupied();
+        while(targets != 0){
+            int to = Bitboards.first(targets);
+            if(!sink.accept(PackedMove.encode(from, to, null, (occupied & Bitboards.bit(to)) != 0))){
+                return false;
+            }
+            targets &= targets - 1;
+        }
+        return true;
+    }
 }
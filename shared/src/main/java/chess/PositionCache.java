@@ -0,0 +1,193 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of legal moves and game status by position, meant to be shared
+ * by many games (see {@link ChessGame#setPositionCache}) so positions that come up
+ * again and again, like popular openings, are only worked out once.
+ * <p>
+ * Positions are found by Zobrist key and the side whose moves were generated.
+ * The table is split into small buckets; a position can only live in the bucket
+ * its key picks. When the bucket is full an entry that hasn't been used since the
+ * last sweep is replaced (clock, or second chance, eviction).
+ * <p>
+ * Entries never change once stored, so threads share the table without locks:
+ * a read sees either a whole entry or none, and two threads storing into the
+ * same bucket at once at worst drop one of the two entries.
+ */
+public final class PositionCache {
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    //Rough size of one entry: headers, key, status and a middlegame's worth of moves
+    private static final int ENTRY_BYTES = 256;
+    private static final int BUCKET_SIZE = 4;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicIntegerArray referenced;
+    private final int bucketMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache sized to fit in about the given amount of memory
+     *
+     * @param megabytes memory to use, at least 1
+     */
+    public PositionCache(int megabytes) {
+        if(megabytes < 1){
+            throw new IllegalArgumentException("Cache size must be at least 1 MB");
+        }
+        long wanted = ((long) megabytes << 20) / ENTRY_BYTES / BUCKET_SIZE;
+        int buckets = Integer.highestOneBit((int) Math.min(wanted, 1 << 24));
+        slots = new AtomicReferenceArray<>(buckets * BUCKET_SIZE);
+        referenced = new AtomicIntegerArray(buckets * BUCKET_SIZE);
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * A position's legal moves, packed (see {@link PackedMove}), and its status
+     */
+    static final class Entry {
+        private final long key;
+        private final int[] moves;
+        private final ChessGame.GameStatus status;
+
+        private Entry(long key, int[] moves, ChessGame.GameStatus status) {
+            this.key = key;
+            this.moves = moves;
+            this.status = status;
+        }
+
+        int moveCount() {
+            return moves.length;
+        }
+
+        int move(int index) {
+            return moves[index];
+        }
+
+        ChessGame.GameStatus status() {
+            return status;
+        }
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position's key, including the side the moves are for
+     * @return the stored entry, or null if the position isn't cached
+     */
+    Entry get(long key) {
+        int base = bucket(key);
+        for(int i = 0; i < BUCKET_SIZE; i++){
+            Entry entry = slots.get(base + i);
+            if(entry != null && entry.key == key){
+                referenced.lazySet(base + i, 1);
+                hits.increment();
+                return entry;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a position's legal moves and status, replacing an older entry if its
+     * bucket is full
+     *
+     * @param key    the position's key, including the side the moves are for
+     * @param moves  every legal move; the list is copied
+     * @param status the status of the side the moves are for
+     * @return the stored entry
+     */
+    Entry put(long key, MoveList moves, ChessGame.GameStatus status) {
+        int[] copy = new int[moves.size()];
+        for(int i = 0; i < copy.length; i++){
+            copy[i] = moves.get(i);
+        }
+        Entry entry = new Entry(key, copy, status);
+
+        int base = bucket(key);
+        int victim = -1;
+        for(int i = 0; i < BUCKET_SIZE && victim < 0; i++){
+            Entry current = slots.get(base + i);
+            if(current == null || current.key == key){
+                victim = base + i;
+            }
+        }
+
+        //Full bucket: sweep from a key-dependent start, giving recently used entries
+        //a second chance. Two sweeps always find one.
+        int start = (int) (key >>> 60) & (BUCKET_SIZE - 1);
+        for(int i = 0; i < BUCKET_SIZE * 2 && victim < 0; i++){
+            int slot = base + ((start + i) & (BUCKET_SIZE - 1));
+            if(referenced.get(slot) == 0){
+                victim = slot;
+                evictions.increment();
+            } else {
+                referenced.lazySet(slot, 0);
+            }
+        }
+
+        slots.set(victim, entry);
+        referenced.lazySet(victim, 0);
+        return entry;
+    }
+
+    /**
+     * Empties the cache and resets the counters
+     */
+    public void clear() {
+        for(int i = 0; i < slots.length(); i++){
+            slots.set(i, null);
+            referenced.set(i, 0);
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * @return how many positions the cache can hold
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return lookups that found their position
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that didn't find their position
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return stored positions that pushed out a different one
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PositionCache[capacity=%d, hits=%d, misses=%d, evictions=%d]",
+                capacity(), getHits(), getMisses(), getEvictions());
+    }
+
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+}
@@ -0,0 +1,133 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The Zobrist keys of the positions a game has left, and the halfmove clock: how
+ * many moves in a row have been made without a capture or a pawn move.
+ * <p>
+ * A capture or pawn move can never be undone on the board, so no position from
+ * before one can come up again. Repetitions are only looked for among the last
+ * halfmove-clock keys, and only those are saved with the game. Earlier keys are
+ * kept in memory just so {@link ChessGame#undoMove()} can go back past the
+ * capture or pawn move.
+ */
+@JsonAdapter(PositionHistory.GsonAdapter.class)
+final class PositionHistory {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    //The clock before each move, to put back on undo
+    private int[] clocks = new int[INITIAL_CAPACITY];
+    private int size;
+    private int halfmoveClock;
+
+    /**
+     * Records a move about to be made
+     *
+     * @param key          the key of the position being left, side to move included
+     * @param irreversible True for a capture or pawn move, which resets the clock
+     */
+    void push(long key, boolean irreversible) {
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            clocks = Arrays.copyOf(clocks, size * 2);
+        }
+        keys[size] = key;
+        clocks[size] = halfmoveClock;
+        size++;
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+    }
+
+    /**
+     * Forgets the last move, putting the clock back
+     */
+    void pop() {
+        size--;
+        halfmoveClock = clocks[size];
+    }
+
+    /**
+     * Forgets every move and sets the clock, for a game set up at a new position
+     */
+    void reset(int halfmoveClock) {
+        size = 0;
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Counts earlier occurrences of a position since the last capture or pawn move
+     *
+     * @param key the current position's key, side to move included
+     */
+    int repetitions(long key) {
+        int count = 0;
+        //The same side is to move every second position back; a repeat needs at
+        //least four moves, so the first candidate is two full moves back
+        int oldest = Math.max(size - Math.min(halfmoveClock, size), 0);
+        for(int i = size - 4; i >= oldest; i -= 2){
+            if(keys[i] == key){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    PositionHistory copy() {
+        PositionHistory copy = new PositionHistory();
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.clocks = Arrays.copyOf(clocks, clocks.length);
+        copy.size = size;
+        copy.halfmoveClock = halfmoveClock;
+        return copy;
+    }
+
+    //Saved as {"halfmoveClock": n, "keys": [...]}, with only the keys repetitions can use
+    static class GsonAdapter extends TypeAdapter<PositionHistory> {
+        @Override
+        public void write(JsonWriter out, PositionHistory history) throws IOException {
+            out.beginObject();
+            out.name("halfmoveClock").value(history.halfmoveClock);
+            out.name("keys").beginArray();
+            for(int i = Math.max(history.size - history.halfmoveClock, 0); i < history.size; i++){
+                out.value(history.keys[i]);
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public PositionHistory read(JsonReader in) throws IOException {
+            PositionHistory history = new PositionHistory();
+            int halfmoveClock = 0;
+            in.beginObject();
+            while(in.hasNext()){
+                switch (in.nextName()) {
+                    case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                    case "keys" -> {
+                        in.beginArray();
+                        while(in.hasNext()){
+                            history.push(in.nextLong(), false);
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            history.halfmoveClock = halfmoveClock;
+            return history;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A read-only snapshot of a game's position: where the pieces stand, whose turn
+ * it is and the move clocks, as they were when {@link ChessGame#snapshot()} was
+ * called.
+ * <p>
+ * The pieces are held as twelve bitboards, one per color and piece type, so
+ * taking a snapshot copies twelve longs and nothing else. A snapshot never
+ * changes, so it can be handed to other threads for broadcasting, caching or
+ * analysis while the game carries on, with no locking and no further copying.
+ */
+public final class PositionView {
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    //By ChessBoard.pieceIndex: white king first, black pawns last
+    private final long[] pieces = new long[12];
+    private final ChessGame.TeamColor teamTurn;
+    private final long zobristKey;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+
+    PositionView(ChessBoard board, ChessGame.TeamColor teamTurn, long zobristKey, int halfmoveClock,
+                 int fullmoveNumber) {
+        for(ChessGame.TeamColor color: COLORS){
+            for(ChessPiece.PieceType type: TYPES){
+                pieces[ChessBoard.pieceIndex(color, type)] = board.getPieces(color, type);
+            }
+        }
+        this.teamTurn = teamTurn;
+        this.zobristKey = zobristKey;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Gets the piece on a square
+     *
+     * @return the piece, or null if the square was empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return getPiece(Bitboards.square(position));
+    }
+
+    ChessPiece getPiece(int square) {
+        long bit = Bitboards.bit(square);
+        for(int index = 0; index < pieces.length; index++){
+            if((pieces[index] & bit) != 0){
+                return ChessPiece.of(COLORS[index / 6], TYPES[index % 6]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Bitboard of one team's pieces of one type
+     */
+    long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[ChessBoard.pieceIndex(color, type)];
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * @return the position's key, side to move included, as {@link ChessGame#getZobristKey()} gave it
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Writes the position as FEN, the same as {@link ChessGame#toFen()} did when
+     * the snapshot was taken
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        ChessBoard.appendPlacement(fen, this::getPiece);
+        fen.append(teamTurn == ChessGame.TeamColor.WHITE ? " w - - " : " b - - ")
+                .append(halfmoveClock)
+                .append(' ')
+                .append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * @return a new board with the snapshot's pieces on it
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for(int index = 0; index < pieces.length; index++){
+            ChessPiece piece = ChessPiece.of(COLORS[index / 6], TYPES[index % 6]);
+            long squares = pieces[index];
+            while(squares != 0){
+                board.setPiece(Bitboards.first(squares), piece);
+                squares &= squares - 1;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return a new game at the snapshot's position. It has no moves to undo and
+     * doesn't know the positions that came before.
+     */
+    public ChessGame toGame() {
+        ChessGame game = new ChessGame(toBoard(), teamTurn);
+        game.setClocks(halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PositionView that = (PositionView) o;
+        return zobristKey == that.zobristKey && teamTurn == that.teamTurn
+                && halfmoveClock == that.halfmoveClock && fullmoveNumber == that.fullmoveNumber
+                && Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Zobrist.fold(zobristKey);
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,259 @@
+package chess;
+
+/**
+ * Reads and writes moves in standard algebraic notation (SAN), such as "Nf3",
+ * "exd5", "Rad1" or "e8=Q+".
+ * <p>
+ * Neither direction lists every legal move of the position. Working back from the
+ * destination square, only the pieces of the right kind that could reach it are
+ * considered, and each is checked for that one move alone (see
+ * {@link ChessGame#isLegal(int)}).
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN string stands for, for the team whose turn it is
+     *
+     * @param game position the move is played in
+     * @param san  the move, with or without check, mate and annotation marks
+     * @return the packed move (see {@link PackedMove})
+     * @throws InvalidMoveException if the text isn't SAN, or matches no legal move or
+     *                              more than one
+     */
+    public static int parse(ChessGame game, CharSequence san) throws InvalidMoveException {
+        //Drop check, mate and annotation marks from the end
+        int end = san.length();
+        while(end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0){
+            end--;
+        }
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if(end > 0 && pieceType(san.charAt(0)) != null){
+            type = pieceType(san.charAt(0));
+            start = 1;
+        }
+
+        //Promotion, written "e8=Q" or "e8Q"
+        ChessPiece.PieceType promotion = null;
+        if(end - start > 2 && pieceType(san.charAt(end - 1)) != null){
+            promotion = pieceType(san.charAt(end - 1));
+            end--;
+            if(san.charAt(end - 1) == '='){
+                end--;
+            }
+        }
+
+        if(end - start < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))){
+            throw new InvalidMoveException("Not a move: " + san);
+        }
+        int to = Bitboards.square(san.charAt(end - 1) - '0', san.charAt(end - 2) - 'a' + 1);
+
+        //Anything left between the piece and the destination narrows down the start
+        long from = -1L;
+        for(int i = start; i < end - 2; i++){
+            char c = san.charAt(i);
+            if(isFile(c)){
+                from &= Bitboards.FILE_A << (c - 'a');
+            } else if(isRank(c)){
+                from &= Bitboards.RANK_1 << 8 * (c - '1');
+            } else if(c != 'x'){
+                throw new InvalidMoveException("Not a move: " + san);
+            }
+        }
+
+        //Each piece that could get there is checked for that one move
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        boolean capture = board.getPiece(to) != null;
+        long candidates = from & reachers(board, color, type, to);
+        int found = PackedMove.NONE;
+        int matches = 0;
+        while(candidates != 0){
+            int move = PackedMove.encode(Bitboards.first(candidates), to, promotion, capture);
+            candidates &= candidates - 1;
+            if(MoveGenerator.isLegal(board, color, move)){
+                found = move;
+                matches++;
+            }
+        }
+        if(matches != 1){
+            throw new InvalidMoveException((matches == 0 ? "Illegal move: " : "Ambiguous move: ") + san);
+        }
+        return found;
+    }
+
+    /**
+     * Writes a move in SAN, with "+" or "#" after it if it gives check or mate. The
+     * move is played and taken back to see which, so the game is left as it was.
+     *
+     * @param game position the move is about to be played in
+     * @param move the packed move (see {@link PackedMove})
+     * @return the move in SAN
+     * @throws InvalidMoveException if the move isn't legal for the team whose turn it is
+     */
+    public static String format(ChessGame game, int move) throws InvalidMoveException {
+        if(!game.isLegal(move)){
+            throw new InvalidMoveException("Illegal move: " + PackedMove.toString(move));
+        }
+        return write(game, move);
+    }
+
+    /**
+     * Writes a move in SAN
+     *
+     * @see #format(ChessGame, int)
+     */
+    public static String format(ChessGame game, ChessMove move) throws InvalidMoveException {
+        if(!game.isLegal(move)){
+            throw new InvalidMoveException("Illegal move: " + move);
+        }
+        return write(game, PackedMove.fromChessMove(move, game.getBoard()));
+    }
+
+    /**
+     * Writes the move last made in a game in SAN, for a move that has already been
+     * checked and played. It is taken back and made again to write it, so the game
+     * ends up as it was.
+     *
+     * @param game a game with at least one move made
+     * @return the move in SAN
+     * @throws IllegalStateException if no move has been made
+     */
+    public static String formatLastMove(ChessGame game) {
+        int move = game.lastMove();
+        if(move == PackedMove.NONE){
+            throw new IllegalStateException("No move to write");
+        }
+        game.undoMove();
+        String san = write(game, move);
+        game.doMove(move);
+        return san;
+    }
+
+    //Writes a move already known to be legal
+    private static String write(ChessGame game, int move) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.getPiece(from);
+
+        StringBuilder san = new StringBuilder(8);
+        boolean capture = board.getPiece(to) != null;
+        ChessPiece.PieceType type = piece.getPieceType();
+        if(type == ChessPiece.PieceType.PAWN){
+            if(capture){
+                san.append(file(from));
+            }
+        } else {
+            san.append(letter(type));
+            appendDisambiguation(san, board, color, type, from, to);
+        }
+        if(capture){
+            san.append('x');
+        }
+        san.append(file(to)).append(rank(to));
+        if(PackedMove.isPromotion(move)){
+            san.append('=').append(letter(PackedMove.promotion(move)));
+        }
+
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        game.doMove(move);
+        if(game.isInCheck(enemy)){
+            san.append(MoveGenerator.hasLegalMove(board, enemy) ? '+' : '#');
+        }
+        game.undoMove();
+        return san.toString();
+    }
+
+    //The start file if it tells the move apart from the other pieces of the kind that
+    //can legally go to the same square, else the rank, else both
+    private static void appendDisambiguation(StringBuilder san, ChessBoard board, ChessGame.TeamColor color,
+                                             ChessPiece.PieceType type, int from, int to) {
+        long others = reachers(board, color, type, to) & ~Bitboards.bit(from);
+        if(others == 0){
+            return;
+        }
+        long rivals = 0L;
+        while(others != 0){
+            int other = Bitboards.first(others);
+            others &= others - 1;
+            if(MoveGenerator.isLegal(board, color, PackedMove.encode(other, to, null, false))){
+                rivals |= Bitboards.bit(other);
+            }
+        }
+        if(rivals == 0){
+            return;
+        }
+        if((rivals & (Bitboards.FILE_A << (Bitboards.column(from) - 1))) == 0){
+            san.append(file(from));
+        } else if((rivals & (Bitboards.RANK_1 << 8 * (Bitboards.row(from) - 1))) == 0){
+            san.append(rank(from));
+        } else {
+            san.append(file(from)).append(rank(from));
+        }
+    }
+
+    //Squares of the team's pieces of one kind that could move to a square if nothing
+    //were pinned or in check: the kind's attacks run backwards from the square
+    private static long reachers(ChessBoard board, ChessGame.TeamColor color, ChessPiece.PieceType type, int to) {
+        long pieces = board.getPieces(color, type);
+        long occupied = board.getOccupied();
+        return switch (type) {
+            case KING -> AttackTables.king(to) & pieces;
+            case QUEEN -> AttackTables.queen(to, occupied) & pieces;
+            case BISHOP -> AttackTables.bishop(to, occupied) & pieces;
+            case KNIGHT -> AttackTables.knight(to) & pieces;
+            case ROOK -> AttackTables.rook(to, occupied) & pieces;
+            case PAWN -> {
+                //Captures, and pushes of one or two from behind
+                long behind = color == ChessGame.TeamColor.WHITE
+                        ? Bitboards.bit(to) >>> 8 | Bitboards.bit(to) >>> 16
+                        : Bitboards.bit(to) << 8 | Bitboards.bit(to) << 16;
+                yield (AttackTables.pawn(ChessGame.opponent(color), to) | behind) & pieces;
+            }
+        };
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + Bitboards.column(square) - 1);
+    }
+
+    private static char rank(int square) {
+        return (char) ('0' + Bitboards.row(square));
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
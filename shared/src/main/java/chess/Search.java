@@ -0,0 +1,453 @@
+package chess;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks a move for the side to move, for hints and computer opponents.
+ * <p>
+ * Iterative deepening runs a principal variation (alpha-beta) search one ply deeper
+ * at a time until a {@link SearchLimits} limit is reached, then answers with the
+ * best move of the deepest iteration that finished. Each leaf is settled with a
+ * quiescence search over captures and promotions so the score isn't taken in the
+ * middle of an exchange. Results go into a {@link TranspositionTable}, so positions
+ * reached again, by another move order or in the next iteration, can be cut short.
+ * Moves are tried best-looking first: the previous iteration's best move at the
+ * root or the table's best move elsewhere, then captures by most valuable victim and
+ * least valuable attacker (MVV-LVA), promotions, killer moves and finally quiet
+ * moves by history score. Given a {@link Tablebase}, positions it covers are scored
+ * exactly instead of searched.
+ * <p>
+ * Moves come from the same generator as {@link ChessGame#legalMoves}, and are
+ * played and taken back on the game itself; the game is left as it was. One
+ * Search can be reused, but not by two threads at once.
+ */
+public final class Search {
+
+    public static final int MATE = 32000;
+    static final int MAX_PLY = 64;
+    //Search finds mates within MAX_PLY, but a tablebase can see much further
+    public static final int MATE_BOUND = MATE - 1024;
+
+    private static final int INFINITY = MATE + 1;
+
+    //Ordering scores, highest tried first
+    private static final int TABLE_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int PROMOTION_SCORE = 900_000;
+    private static final int FIRST_KILLER_SCORE = 800_000;
+    private static final int SECOND_KILLER_SCORE = 700_000;
+    private static final int HISTORY_LIMIT = 500_000;
+
+    //Cheapest attacker first, by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] ATTACKER_RANK = {6, 5, 3, 2, 4, 1};
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][256];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][][] history = new int[2][64][64];
+    private final TranspositionTable table;
+    private Tablebase tablebase;
+
+    //Only set on helper threads, which may start deeper to spread out the work
+    private AtomicBoolean stopSignal;
+    private int startDepth = 1;
+
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean canStop;
+    private boolean stopped;
+    private int rootBest;
+
+    public Search() {
+        this(new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * @param table where search results are kept between positions and searches
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for(int ply = 0; ply <= MAX_PLY; ply++){
+            moveLists[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * @param tablebase endgames to look up instead of searching, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    //Makes this the helper of a parallel search: it stops when told to, even in its
+    //first iteration, and leaves the table's generation to the main search
+    void makeHelper(AtomicBoolean stopSignal, int startDepth) {
+        this.stopSignal = stopSignal;
+        this.startDepth = startDepth;
+    }
+
+    /**
+     * Searches for the best move of the team whose turn it is
+     *
+     * @param game   the game to search; it is left as it was
+     * @param limits when to stop; the first iteration always finishes
+     * @return the best move found with its score, depth and node count
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        this.game = game;
+        this.board = game.getBoard();
+        nodes = 0;
+        nodeLimit = limits.maxNodes();
+        deadline = limits.maxMillis() > 0 ? start + limits.maxMillis() * 1_000_000L : Long.MAX_VALUE;
+        stopped = false;
+        resetOrdering();
+        if(stopSignal == null){
+            table.newSearch();
+        }
+
+        ChessGame.TeamColor color = game.getTeamTurn();
+        MoveList rootMoves = moveLists[0];
+        rootMoves.clear();
+        game.legalMoves(color, rootMoves);
+        if(rootMoves.isEmpty()){
+            int score = game.isInCheck(color) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+        }
+        scoreMoves(rootMoves, 0, PackedMove.NONE);
+        for(int i = 0; i < rootMoves.size(); i++){
+            pickNext(rootMoves, 0, i);
+        }
+
+        int maxDepth = limits.maxDepth() > 0 ? Math.min(limits.maxDepth(), MAX_PLY) : MAX_PLY;
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completed = 0;
+        for(int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++){
+            canStop = depth > 1 || stopSignal != null;
+            int score = searchRoot(rootMoves, depth);
+            if(stopped){
+                break;
+            }
+            bestMove = rootBest;
+            bestScore = score;
+            completed = depth;
+
+            //Nothing deeper can beat a forced mate
+            if(Math.abs(score) >= MATE_BOUND){
+                break;
+            }
+        }
+
+        this.game = null;
+        this.board = null;
+        return new SearchResult(PackedMove.toChessMove(bestMove), bestScore, completed, nodes,
+                System.nanoTime() - start);
+    }
+
+    //Searches every root move and moves the best one to the front for the next iteration
+    private int searchRoot(MoveList rootMoves, int depth) {
+        int alpha = -INFINITY;
+        int bestIndex = 0;
+        for(int i = 0; i < rootMoves.size(); i++){
+            int move = rootMoves.get(i);
+            game.doMove(move);
+            int score;
+            if(i == 0){
+                score = -search(depth - 1, -INFINITY, -alpha, 1);
+            } else {
+                score = -search(depth - 1, -alpha - 1, -alpha, 1);
+                if(score > alpha && !stopped){
+                    score = -search(depth - 1, -INFINITY, -alpha, 1);
+                }
+            }
+            game.undoMove();
+
+            if(stopped){
+                return alpha;
+            }
+            if(score > alpha){
+                alpha = score;
+                bestIndex = i;
+            }
+        }
+
+        int best = rootMoves.get(bestIndex);
+        for(int i = bestIndex; i > 0; i--){
+            rootMoves.set(i, rootMoves.get(i - 1));
+        }
+        rootMoves.set(0, best);
+        rootBest = best;
+        return alpha;
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        ChessGame.TeamColor color = game.getTeamTurn();
+        //Going back to an earlier position is a draw; whoever can do better won't
+        if(game.isRepeated() || game.getHalfmoveClock() >= ChessGame.FIFTY_MOVE_LIMIT){
+            nodes++;
+            return 0;
+        }
+        if(tablebase != null){
+            int value = tablebase.probe(board, color);
+            if(value != Tablebase.NONE){
+                nodes++;
+                return tablebaseScore(value, ply);
+            }
+        }
+        boolean inCheck = game.isInCheck(color);
+
+        //Don't stop to evaluate while in check
+        if(inCheck){
+            depth++;
+        }
+        if(depth <= 0){
+            return quiesce(alpha, beta, ply);
+        }
+
+        nodes++;
+        if(outOfBudget()){
+            return 0;
+        }
+
+        //A deep enough earlier result can settle this node outright, except on the
+        //principal variation where the exact line matters
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int tableMove = PackedMove.NONE;
+        boolean pvNode = beta - alpha > 1;
+        if(entry != 0){
+            tableMove = TranspositionTable.move(entry);
+            int score = TranspositionTable.fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if(!pvNode && TranspositionTable.depth(entry) >= depth
+                    && (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha))){
+                return score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.legalMoves(color, moves);
+        if(moves.isEmpty()){
+            return inCheck ? -MATE + ply : 0;
+        }
+        if(ply >= MAX_PLY){
+            return Evaluator.evaluate(board, color);
+        }
+
+        scoreMoves(moves, ply, tableMove);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for(int i = 0; i < moves.size(); i++){
+            pickNext(moves, ply, i);
+            int move = moves.get(i);
+            game.doMove(move);
+
+            //Only the first move gets a full window; the rest just have to prove they're worse
+            int score;
+            if(i == 0){
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if(score > alpha && score < beta && !stopped){
+                    score = -search(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            game.undoMove();
+
+            if(stopped){
+                return 0;
+            }
+            if(score > best){
+                best = score;
+                bestMove = move;
+            }
+            if(score > alpha){
+                alpha = score;
+            }
+            if(alpha >= beta){
+                if(isQuiet(move)){
+                    rememberCutoff(move, color, depth, ply);
+                }
+                break;
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, TranspositionTable.toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    //Only captures and promotions until the position is quiet, unless in check
+    private int quiesce(int alpha, int beta, int ply) {
+        nodes++;
+        if(outOfBudget()){
+            return 0;
+        }
+
+        ChessGame.TeamColor color = game.getTeamTurn();
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        int best = -INFINITY;
+        if(game.isInCheck(color)){
+            //Every way out of check is searched
+            game.legalMoves(color, moves);
+            if(moves.isEmpty()){
+                return -MATE + ply;
+            }
+            if(ply >= MAX_PLY){
+                return Evaluator.evaluate(board, color);
+            }
+        } else {
+            //Standing pat: the side to move doesn't have to capture
+            best = Evaluator.evaluate(board, color);
+            if(best >= beta || ply >= MAX_PLY){
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+
+            //Quiet moves are never searched here, so they aren't generated either
+            MoveGenerator.generateTactical(board, color, moves);
+            if(moves.isEmpty()){
+                //Nothing to capture or promote: only a stalemate changes the score
+                return MoveGenerator.hasLegalMove(board, color) ? best : 0;
+            }
+        }
+
+        scoreMoves(moves, ply, PackedMove.NONE);
+        for(int i = 0; i < moves.size(); i++){
+            pickNext(moves, ply, i);
+            int move = moves.get(i);
+            game.doMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.undoMove();
+
+            if(stopped){
+                return 0;
+            }
+            if(score > best){
+                best = score;
+            }
+            if(score > alpha){
+                alpha = score;
+            }
+            if(alpha >= beta){
+                break;
+            }
+        }
+        return best;
+    }
+
+    //Mates from the tablebase count from this node, like mates found by search
+    private static int tablebaseScore(int value, int ply) {
+        if(Tablebase.isWin(value)){
+            return MATE - ply - Tablebase.plies(value);
+        }
+        if(Tablebase.isLoss(value)){
+            return -MATE + ply + Tablebase.plies(value);
+        }
+        return 0;
+    }
+
+    private boolean outOfBudget() {
+        if(!canStop){
+            return false;
+        }
+        if((nodeLimit > 0 && nodes >= nodeLimit)
+                || ((nodes & 1023) == 0 && (System.nanoTime() - deadline > 0
+                        || (stopSignal != null && stopSignal.get())))){
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private static boolean isQuiet(int move) {
+        return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int tableMove) {
+        int[] scores = moveScores[ply];
+        int colorIndex = game.getTeamTurn().ordinal();
+        for(int i = 0; i < moves.size(); i++){
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            int score;
+            if(PackedMove.sameMove(move, tableMove)){
+                score = TABLE_MOVE_SCORE;
+            } else if(PackedMove.isCapture(move)){
+                int victim = board.getPiece(to).getPieceType().ordinal();
+                int attacker = board.getPiece(from).getPieceType().ordinal();
+                score = CAPTURE_SCORE + Evaluator.PIECE_VALUES[victim] * 8 - ATTACKER_RANK[attacker];
+            } else if(PackedMove.isPromotion(move)){
+                score = PROMOTION_SCORE + Evaluator.PIECE_VALUES[PackedMove.promotion(move).ordinal()];
+            } else if(PackedMove.sameMove(move, killers[ply][0])){
+                score = FIRST_KILLER_SCORE;
+            } else if(PackedMove.sameMove(move, killers[ply][1])){
+                score = SECOND_KILLER_SCORE;
+            } else {
+                score = history[colorIndex][from][to];
+            }
+            scores[i] = score;
+        }
+    }
+
+    //Selection sort one step at a time, so moves after a cutoff are never sorted
+    private void pickNext(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for(int i = index + 1; i < moves.size(); i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        if(best != index){
+            moves.swap(index, best);
+            int score = scores[index];
+            scores[index] = scores[best];
+            scores[best] = score;
+        }
+    }
+
+    //A quiet move that caused a cutoff is likely good in sibling positions too
+    private void rememberCutoff(int move, ChessGame.TeamColor color, int depth, int ply) {
+        if(!PackedMove.sameMove(move, killers[ply][0])){
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] row = history[color.ordinal()][PackedMove.from(move)];
+        int to = PackedMove.to(move);
+        row[to] += depth * depth;
+        if(row[to] > HISTORY_LIMIT){
+            ageHistory();
+        }
+    }
+
+    private void resetOrdering() {
+        for(int[] pair: killers){
+            pair[0] = PackedMove.NONE;
+            pair[1] = PackedMove.NONE;
+        }
+        ageHistory();
+    }
+
+    //Older results count for less, and scores stay below the killer scores
+    private void ageHistory() {
+        for(int[][] side: history){
+            for(int[] row: side){
+                for(int to = 0; to < 64; to++){
+                    row[to] >>= 1;
+                }
+            }
+        }
+    }
+}
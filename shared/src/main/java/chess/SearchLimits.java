@@ -0,0 +1,33 @@
+package chess;
+
+/**
+ * How far and how long a {@link Search} may go. Searching stops at whichever
+ * limit is reached first; a limit of 0 means no limit.
+ *
+ * @param maxDepth  deepest iteration to search, in plies
+ * @param maxNodes  most positions to visit
+ * @param maxMillis most time to spend, in milliseconds
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+
+    /**
+     * @return limits that only cap the depth
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * @return limits that only cap the number of positions visited
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(0, maxNodes, 0);
+    }
+
+    /**
+     * @return limits that only cap the time spent
+     */
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(0, 0, maxMillis);
+    }
+}
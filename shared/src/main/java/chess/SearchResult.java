@@ -0,0 +1,28 @@
+package chess;
+
+/**
+ * What a {@link Search} found
+ *
+ * @param bestMove best move found, or null if the side to move has none
+ * @param score    score of the best move in centipawns for the side to move; mates
+ *                 are scored beyond {@link Search#MATE_BOUND}
+ * @param depth    deepest iteration that finished
+ * @param nodes    positions visited
+ * @param nanos    time spent, in nanoseconds
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long nanos) {
+
+    /**
+     * @return positions visited per second of searching
+     */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * @return True if the score is a forced mate for one side or the other
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+}
@@ -0,0 +1,281 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Exact results for endgames where one side has a king and at most two more pieces
+ * and the other a lone king (KQK, KRK, KPK, KBNK and so on), read from files made
+ * by {@link TablebaseGenerator}.
+ * <p>
+ * Each table is one file, named for its material (for example "KBNK.tb"), with one
+ * byte per position: 0 for a draw, otherwise the number of plies to mate plus one.
+ * An odd number of plies is a win for the side to move and an even number a loss.
+ * The tables are always stored with the stronger side as white; a position where
+ * black has the pieces is looked up with the board turned around.
+ * <p>
+ * Files are memory-mapped, and a position's byte is found by computing its offset
+ * from the side to move and the squares of the pieces, so a probe is a handful of
+ * arithmetic and one read. Probes from several threads at once are safe.
+ */
+public final class Tablebase {
+
+    public static final String SUFFIX = ".tb";
+    //Kings included
+    public static final int MAX_PIECES = 4;
+    //Returned by probe when no loaded table covers the position
+    public static final int NONE = -1;
+
+    //Order of the extra pieces in table names and position indexes
+    static final String KINDS = "QRBNP";
+    private static final ChessPiece.PieceType[] KIND_TYPES = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.PAWN
+    };
+    //By PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] KIND_OF_TYPE = {-1, 0, 2, 3, 1, 4};
+    static final int CODES = 36;
+
+    //By material code, see code()
+    private final ByteBuffer[] tables = new ByteBuffer[CODES];
+
+    private Tablebase() {
+    }
+
+    /**
+     * Maps every table file in a directory
+     *
+     * @param directory where the tables are
+     * @return the tablebase, which may have no tables if none were found
+     * @throws IOException if the directory or a table can't be read, or a table
+     *                     isn't the right size for its name
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for(Path file: files){
+                String name = file.getFileName().toString();
+                int code = code(name.substring(0, name.length() - SUFFIX.length()));
+                if(code > 0){
+                    tablebase.tables[code] = map(file, code);
+                }
+            }
+        }
+        return tablebase;
+    }
+
+    static ByteBuffer map(Path file, int code) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() != size(code)){
+                throw new IOException("Wrong size for a tablebase: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return names of the loaded tables, such as "KQK"
+     */
+    public Set<String> getTables() {
+        Set<String> names = new TreeSet<>();
+        for(int code = 1; code < CODES; code++){
+            if(tables[code] != null){
+                names.add(name(code));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Looks up the game's position
+     *
+     * @return 0 for a draw, otherwise plies to mate plus one (see {@link #isWin},
+     * {@link #plies}), or {@link #NONE} if no loaded table covers the position
+     */
+    public int probe(ChessGame game) {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    int probe(ChessBoard board, ChessGame.TeamColor turn) {
+        long position = locate(board, turn);
+        if(position < 0){
+            return NONE;
+        }
+        int code = (int) (position >>> 32);
+        if(code == 0){
+            return 0;
+        }
+        ByteBuffer table = tables[code];
+        return table == null ? NONE : table.get((int) position) & 0xFF;
+    }
+
+    /**
+     * Works out which table covers a position and where it is in it
+     *
+     * @return the table's code (see {@link #code(int, int)}) in the high 32 bits and
+     * the index in the low 32, code 0 for bare kings, or -1 if the material isn't
+     * a king and up to two pieces against a lone king
+     */
+    static long locate(ChessBoard board, ChessGame.TeamColor turn) {
+        if(Long.bitCount(board.getOccupied()) > MAX_PIECES){
+            return -1L;
+        }
+        ChessGame.TeamColor strong = ChessGame.TeamColor.WHITE;
+        ChessGame.TeamColor weak = ChessGame.TeamColor.BLACK;
+        if(board.getPieceCount(strong) < board.getPieceCount(weak)){
+            strong = ChessGame.TeamColor.BLACK;
+            weak = ChessGame.TeamColor.WHITE;
+        }
+        //Both sides need a king, and one side nothing else
+        if(board.getPieceCount(weak) != 1 || board.getKingSquare(strong) < 0 || board.getKingSquare(weak) < 0){
+            return -1L;
+        }
+        //Bare kings can't mate
+        if(board.getPieceCount(strong) == 1){
+            return 0L;
+        }
+
+        //Turn the board around so the strong side is white
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int strongKing = board.getKingSquare(strong);
+        long others = board.getPieces(strong) & ~Bitboards.bit(strongKing);
+        int kind1 = -1;
+        int square1 = 0;
+        int kind2 = -1;
+        int square2 = 0;
+        while(others != 0){
+            int square = Long.numberOfTrailingZeros(others);
+            others &= others - 1;
+            int kind = KIND_OF_TYPE[board.getPiece(square).getPieceType().ordinal()];
+            if(kind1 < 0){
+                kind1 = kind;
+                square1 = square ^ flip;
+            } else {
+                kind2 = kind;
+                square2 = square ^ flip;
+            }
+        }
+
+        int sideToMove = turn == strong ? 0 : 1;
+        int index = index(sideToMove, strongKing ^ flip, board.getKingSquare(weak) ^ flip,
+                kind1, square1, kind2, square2);
+        return (long) code(kind1, kind2) << 32 | index;
+    }
+
+    /**
+     * @return True if a probe result is a win for the side to move
+     */
+    public static boolean isWin(int value) {
+        return value > 0 && (plies(value) & 1) == 1;
+    }
+
+    /**
+     * @return True if a probe result is a loss for the side to move
+     */
+    public static boolean isLoss(int value) {
+        return value > 0 && (plies(value) & 1) == 0;
+    }
+
+    /**
+     * @return plies to mate for a probe result that is a win or loss
+     */
+    public static int plies(int value) {
+        return value - 1;
+    }
+
+    /**
+     * Works out where a position is in its table. The extra pieces can be given in
+     * any order; kind -1 means there is no such piece.
+     *
+     * @param sideToMove 0 for the side with the pieces, 1 for the lone king
+     */
+    static int index(int sideToMove, int strongKing, int weakKing, int kind1, int square1, int kind2, int square2) {
+        //Canonical order: by kind, and the missing piece last
+        if(kind2 >= 0 && (kind1 < 0 || kind2 < kind1)){
+            int kind = kind1;
+            kind1 = kind2;
+            kind2 = kind;
+            int square = square1;
+            square1 = square2;
+            square2 = square;
+        }
+        int index = ((sideToMove << 6) | strongKing) << 6 | weakKing;
+        if(kind1 >= 0){
+            index = index << 6 | square1;
+        }
+        if(kind2 >= 0){
+            index = index << 6 | square2;
+        }
+        return index;
+    }
+
+    /**
+     * Numbers a table by its extra pieces: 0 for none (bare kings), 1 to 5 for one
+     * piece, above that for two
+     */
+    static int code(int kind1, int kind2) {
+        if(kind1 < 0){
+            return kind2 + 1;
+        }
+        if(kind2 < 0){
+            return kind1 + 1;
+        }
+        return (Math.min(kind1, kind2) + 1) * 6 + Math.max(kind1, kind2) + 1;
+    }
+
+    /**
+     * @return the code for a table name such as "KRK" or "KBNK", or -1 if it isn't one
+     */
+    static int code(String name) {
+        int extra = name.length() - 2;
+        if(extra < 1 || extra > MAX_PIECES - 2 || name.charAt(0) != 'K' || name.charAt(name.length() - 1) != 'K'){
+            return -1;
+        }
+        int kind1 = KINDS.indexOf(name.charAt(1));
+        int kind2 = extra > 1 ? KINDS.indexOf(name.charAt(2)) : -1;
+        if(kind1 < 0 || (extra > 1 && kind2 < 0)){
+            return -1;
+        }
+        return code(kind1, kind2);
+    }
+
+    static String name(int code) {
+        StringBuilder name = new StringBuilder("K");
+        if(code > 6){
+            name.append(KINDS.charAt(code / 6 - 1));
+        }
+        name.append(KINDS.charAt(code % 6 - 1));
+        return name.append('K').toString();
+    }
+
+    //Kinds in canonical order, first then second; -1 if missing
+    static int firstKind(int code) {
+        return code > 6 ? code / 6 - 1 : code - 1;
+    }
+
+    static int secondKind(int code) {
+        return code > 6 ? code % 6 - 1 : -1;
+    }
+
+    static ChessPiece.PieceType type(int kind) {
+        return KIND_TYPES[kind];
+    }
+
+    /**
+     * @return bytes in a table: side to move, two kings and each extra piece
+     */
+    static long size(int code) {
+        int pieces = 2 + (code > 6 ? 2 : 1);
+        return 2L << (6 * pieces);
+    }
+}
@@ -0,0 +1,410 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds the {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * One forward pass sets every position up on a board and asks
+ * {@link MoveGenerator} for its legal moves. It marks checkmates and scores the
+ * moves that capture or promote from the smaller table they lead into, which is
+ * generated first (a pawn ending needs the tables for every piece it can promote
+ * to).
+ * <p>
+ * After that the table is solved backwards, one distance at a time. Each position
+ * decided in n plies has its moves taken back, with
+ * {@link MoveGenerator#origins} and {@link MoveGenerator#isLegal}, to find the
+ * positions that lead to it. One before a loss in n is a win in n + 1. One
+ * before a win has its own moves checked, and is lost in n + 1 if all of them
+ * are now known to lose. Whatever is undecided when no distance is left is a
+ * draw.
+ * <p>
+ * Each pass is split into chunks of the table run on a fork-join pool. A pass
+ * only looks at positions at its own distance and only writes ones further out,
+ * so tasks that reach the same position write the same value and
+ * the chunks can share the table without locking.
+ */
+public final class TablebaseGenerator {
+
+    //Positions per fork-join task
+    private static final int CHUNK = 1 << 16;
+    //Marks positions that can't happen while solving; written out as 0
+    private static final byte IMPOSSIBLE = (byte) 0xFF;
+    //Stored as plies + 1, below the IMPOSSIBLE marker
+    private static final int MAX_PLIES = 253;
+    //Exit for a lone king that can take a piece into a drawn table, so is never lost
+    private static final byte ESCAPED = (byte) 0xFF;
+
+    private static final int PAWN = Tablebase.KINDS.indexOf('P');
+    private static final int PROMOTIONS = 4;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param directory where to write tables, and look for ones already generated
+     * @param pool      pool to solve on, such as {@link ForkJoinPool#commonPool()}
+     */
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    /**
+     * Generates a table, and first any smaller ones it needs that aren't in the
+     * directory yet. Tables already in the directory are left alone.
+     *
+     * @param name material of the table, such as "KQK" or "KBNK": the strong side's
+     *             king, up to two more pieces, then the lone king
+     * @return the table's file
+     * @throws IOException if a table can't be read or written
+     */
+    public Path generate(String name) throws IOException {
+        int code = Tablebase.code(name);
+        if(code < 0){
+            throw new IllegalArgumentException("Not a tablebase name: " + name);
+        }
+        return generate(code);
+    }
+
+    private Path generate(int code) throws IOException {
+        Path file = directory.resolve(Tablebase.name(code) + Tablebase.SUFFIX);
+        if(Files.exists(file)){
+            return file;
+        }
+
+        ByteBuffer[] subtables = new ByteBuffer[Tablebase.CODES];
+        for(int subtable: subtables(code)){
+            if(subtable > 0 && subtables[subtable] == null){
+                subtables[subtable] = Tablebase.map(generate(subtable), subtable);
+            }
+        }
+
+        byte[] values = new Solver(code, subtables).solve();
+        //Written under another name first so a half-written table is never picked up
+        Path partial = directory.resolve(file.getFileName() + ".part");
+        Files.write(partial, values);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    //Tables a capture or promotion can lead to; 0 is bare kings
+    private static List<Integer> subtables(int code) {
+        int kind1 = Tablebase.firstKind(code);
+        int kind2 = Tablebase.secondKind(code);
+        List<Integer> codes = new ArrayList<>();
+        codes.add(Tablebase.code(kind2, -1));
+        if(kind2 >= 0){
+            codes.add(Tablebase.code(kind1, -1));
+        }
+        for(int promotion = 0; promotion < PROMOTIONS; promotion++){
+            if(kind1 == PAWN){
+                codes.add(Tablebase.code(promotion, kind2));
+            }
+            if(kind2 == PAWN){
+                codes.add(Tablebase.code(kind1, promotion));
+            }
+        }
+        return codes;
+    }
+
+    private final class Solver {
+        private final int code;
+        private final int kind1;
+        private final int kind2;
+        private final int extra;
+        private final byte[] values;
+        //Lone king to move: the slowest mate among moves that leave the table, plies + 1
+        private final byte[] exits;
+        private final ByteBuffer[] subtables;
+
+        Solver(int code, ByteBuffer[] subtables) {
+            this.code = code;
+            this.kind1 = Tablebase.firstKind(code);
+            this.kind2 = Tablebase.secondKind(code);
+            this.extra = kind2 >= 0 ? 2 : 1;
+            int size = (int) Tablebase.size(code);
+            this.values = new byte[size];
+            this.exits = new byte[size];
+            this.subtables = subtables;
+        }
+
+        byte[] solve() {
+            int half = values.length / 2;
+            int longest = run(0, values.length, -1);
+            //Values are plies + 1, and each pass only writes ones further out than its own
+            for(int plies = 0; plies + 1 <= longest; plies++){
+                //Only the strong side can win, at an odd distance, and only the lone king lose
+                int side = (plies & 1) == 1 ? 0 : 1;
+                longest = Math.max(longest, run(side * half, (side + 1) * half, plies));
+                if(longest > MAX_PLIES + 1){
+                    throw new IllegalStateException(Tablebase.name(code) + " has mates too long to store");
+                }
+            }
+
+            for(int i = 0; i < values.length; i++){
+                if(values[i] == IMPOSSIBLE){
+                    values[i] = 0;
+                }
+            }
+            return values;
+        }
+
+        //Runs one pass over part of the table: plies -1 is the first pass, otherwise
+        //the positions decided at that distance are passed back to the ones before them.
+        //Returns the largest value written.
+        private int run(int from, int to, int plies) {
+            List<RecursiveTask<Integer>> tasks = new ArrayList<>();
+            for(int start = from; start < to; start += CHUNK){
+                int first = start;
+                int last = Math.min(start + CHUNK, to);
+                tasks.add(new RecursiveTask<>() {
+                    @Override
+                    protected Integer compute() {
+                        return new Pass(Solver.this).run(first, last, plies);
+                    }
+                });
+            }
+
+            return pool.invoke(new RecursiveTask<Integer>() {
+                @Override
+                protected Integer compute() {
+                    invokeAll(tasks);
+                    int longest = 0;
+                    for(RecursiveTask<Integer> task: tasks){
+                        longest = Math.max(longest, task.join());
+                    }
+                    return longest;
+                }
+            });
+        }
+
+        //Value of a position in a smaller table, from Tablebase.locate
+        private int subtableValue(long position) {
+            int table = (int) (position >>> 32);
+            return table == 0 ? 0 : subtables[table].get((int) position) & 0xFF;
+        }
+    }
+
+    //One task's share of a pass, with its own board to set positions up on
+    private static final class Pass {
+        private final Solver solver;
+        private final ChessBoard board = new ChessBoard();
+        private final ChessGame game = new ChessGame();
+        private final MoveList moves = new MoveList();
+        private final MoveList replies = new MoveList();
+        private final int[] placed = new int[Tablebase.MAX_PIECES];
+
+        Pass(Solver solver) {
+            this.solver = solver;
+            game.setBoard(board);
+        }
+
+        int run(int from, int to, int plies) {
+            byte[] values = solver.values;
+            int longest = 0;
+            for(int index = from; index < to; index++){
+                if(plies < 0){
+                    longest = Math.max(longest, seed(index));
+                } else if((values[index] & 0xFF) == plies + 1){
+                    longest = Math.max(longest, retract(index, plies));
+                }
+            }
+            return longest;
+        }
+
+        //Marks impossible positions and mates, and scores the moves that leave the
+        //table from the smaller tables.
+        //Returns the value written, or 0 if the position is still open.
+        private int seed(int index) {
+            byte[] values = solver.values;
+            if(!load(index)){
+                values[index] = IMPOSSIBLE;
+                return 0;
+            }
+            ChessGame.TeamColor color = game.getTeamTurn();
+            ChessGame.TeamColor enemy = ChessGame.opponent(color);
+            //The side not to move can't be in check
+            if(game.isInCheck(enemy)){
+                values[index] = IMPOSSIBLE;
+                return 0;
+            }
+
+            moves.clear();
+            MoveGenerator.generate(board, color, -1L, moves);
+            if(moves.size() == 0){
+                //Only the lone king can be mated; stalemate stays a draw
+                if(game.isInCheck(color)){
+                    values[index] = 1;
+                    return 1;
+                }
+                return 0;
+            }
+
+            boolean strongToMove = color == ChessGame.TeamColor.WHITE;
+            int best = 0;
+            int staying = 0;
+            for(int i = 0; i < moves.size(); i++){
+                int move = moves.get(i);
+                if(!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)){
+                    staying++;
+                    continue;
+                }
+                game.doMove(move);
+                int value = solver.subtableValue(Tablebase.locate(board, enemy));
+                game.undoMove();
+                if(strongToMove){
+                    //Promoting into a lost position wins one ply later
+                    if(Tablebase.isLoss(value) && (best == 0 || value + 1 < best)){
+                        best = value + 1;
+                    }
+                } else if(value == 0){
+                    //Taking a piece into a draw: this can never be lost
+                    solver.exits[index] = ESCAPED;
+                    return 0;
+                } else {
+                    best = Math.max(best, value + 1);
+                }
+            }
+
+            //A promotion's win stands unless a shorter one turns up on the way back;
+            //a lone king whose every move leaves the table is already decided
+            if(strongToMove || staying == 0){
+                values[index] = (byte) best;
+                return best;
+            }
+            solver.exits[index] = (byte) best;
+            return 0;
+        }
+
+        //Takes back every move that could have led to a position decided in this many
+        //plies, and decides whichever positions before it that settles.
+        //Returns the largest value written.
+        private int retract(int index, int plies) {
+            load(index);
+            ChessGame.TeamColor moved = ChessGame.opponent(game.getTeamTurn());
+            int longest = 0;
+            long pieces = board.getPieces(moved);
+            while(pieces != 0){
+                int square = Bitboards.first(pieces);
+                pieces &= pieces - 1;
+                long origins = MoveGenerator.origins(board, square);
+                while(origins != 0){
+                    int origin = Bitboards.first(origins);
+                    origins &= origins - 1;
+                    board.movePiece(square, origin);
+                    int before = (int) Tablebase.locate(board, moved);
+                    int current = solver.values[before] & 0xFF;
+                    //A win by promoting can still be beaten by a shorter one
+                    boolean open = current == 0
+                            || (moved == ChessGame.TeamColor.WHITE && current != (IMPOSSIBLE & 0xFF) && current > plies + 2);
+                    if(open && MoveGenerator.isLegal(board, moved, PackedMove.encode(origin, square, null, false))){
+                        int value = moved == ChessGame.TeamColor.WHITE ? plies + 2 : lost(before, plies);
+                        if(value > 0){
+                            solver.values[before] = (byte) value;
+                            longest = Math.max(longest, value);
+                        }
+                    }
+                    board.movePiece(origin, square);
+                }
+            }
+            return longest;
+        }
+
+        //Value of the lone king's position on the board, one move before a win in
+        //this many plies, if every move it has now loses; 0 if not yet. Wins decided
+        //at this distance were all written by the pass before, so every task that
+        //asks gets the same answer.
+        private int lost(int index, int plies) {
+            int exit = solver.exits[index] & 0xFF;
+            if(exit == (ESCAPED & 0xFF)){
+                return 0;
+            }
+            replies.clear();
+            MoveGenerator.generate(board, ChessGame.TeamColor.BLACK, -1L, replies);
+            for(int i = 0; i < replies.size(); i++){
+                int reply = replies.get(i);
+                if(PackedMove.isCapture(reply)){
+                    continue;
+                }
+                board.movePiece(PackedMove.from(reply), PackedMove.to(reply));
+                int value = solver.values[(int) Tablebase.locate(board, ChessGame.TeamColor.WHITE)] & 0xFF;
+                board.movePiece(PackedMove.to(reply), PackedMove.from(reply));
+                if(value == 0 || value > plies + 1){
+                    return 0;
+                }
+            }
+            return Math.max(plies + 2, exit);
+        }
+
+        //Sets the board up for an index, white as the strong side
+        //@return False if the index isn't a position that can happen
+        private boolean load(int index) {
+            int extra = solver.extra;
+            int kind1 = solver.kind1;
+            int kind2 = solver.kind2;
+            int square2 = extra == 2 ? index & 63 : 0;
+            int square1 = (index >>> (6 * (extra - 1))) & 63;
+            int weakKing = (index >>> (6 * extra)) & 63;
+            int strongKing = (index >>> (6 * extra + 6)) & 63;
+            int side = index >>> (6 * extra + 12);
+
+            long occupied = Bitboards.bit(strongKing) | Bitboards.bit(weakKing) | Bitboards.bit(square1)
+                    | (kind2 >= 0 ? Bitboards.bit(square2) : 0L);
+            if(Long.bitCount(occupied) != extra + 2
+                    || (kind1 == PAWN && isBackRank(square1)) || (kind2 == PAWN && isBackRank(square2))){
+                return false;
+            }
+
+            for(int i = 0; i < placed.length; i++){
+                board.setPiece(placed[i], null);
+            }
+            placed[0] = strongKing;
+            placed[1] = weakKing;
+            placed[2] = square1;
+            placed[3] = kind2 >= 0 ? square2 : square1;
+            board.setPiece(strongKing, ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+            board.setPiece(weakKing, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+            board.setPiece(square1, ChessPiece.of(ChessGame.TeamColor.WHITE, Tablebase.type(kind1)));
+            if(kind2 >= 0){
+                board.setPiece(square2, ChessPiece.of(ChessGame.TeamColor.WHITE, Tablebase.type(kind2)));
+            }
+            game.setTeamTurn(side == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+            return true;
+        }
+    }
+
+    private static boolean isBackRank(int square) {
+        return square < 8 || square >= 56;
+    }
+
+    /**
+     * Generates tables.
+     * <p>
+     * Arguments: the directory to write to, then the tables to generate, such as
+     * "KQK KRK KPK KBNK".
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("Usage: TablebaseGenerator <directory> <table>...");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory, ForkJoinPool.commonPool());
+        for(int i = 1; i < args.length; i++){
+            long start = System.nanoTime();
+            Path file = generator.generate(args[i]);
+            System.out.printf("%s: %d bytes in %.1f s%n", file.getFileName(), Files.size(file),
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Search results by position, shared by every thread of a {@link ParallelSearch}.
+ * <p>
+ * Each entry is two longs: the result packed into one, and the position's Zobrist
+ * key XORed with that result in the other. Threads read and write without any
+ * locking, so a reader can see one half of an entry from one write and the other
+ * half from another. When that happens the XOR no longer gives back the key being
+ * looked up, and the entry is treated as missing instead of as a wrong answer.
+ * <p>
+ * Packed result layout:
+ * <pre>
+ * bits  0-15  best move (see {@link PackedMove})
+ * bits 16-31  score, signed
+ * bits 32-39  depth searched
+ * bits 40-41  bound: {@link #UPPER}, {@link #LOWER} or {@link #EXACT}
+ * bits 42-49  generation, to prefer replacing results from older searches
+ * </pre>
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    //The score is at most this
+    static final int UPPER = 1;
+    //The score is at least this
+    static final int LOWER = 2;
+    static final int EXACT = 3;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    /**
+     * Creates a table sized to fit in about the given amount of memory
+     *
+     * @param megabytes memory to use, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        if(megabytes < 1){
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        //Sixteen bytes per entry
+        int entries = Integer.highestOneBit((int) Math.min(((long) megabytes << 20) / 16, 1 << 28));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @return the packed result, or 0 if the position isn't stored
+     */
+    long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        if((keys[index] ^ entry) != key){
+            return 0;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a search result, replacing what was in its slot unless that is a deeper
+     * result for a different position from the current search
+     *
+     * @param score score relative to this node; mate scores are stored relative to it
+     *              too, see {@link #toTable} and {@link #fromTable}
+     */
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        if((keys[index] ^ old) != key && generation(old) == generation && depth(old) > depth){
+            return;
+        }
+        long entry = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Marks the start of a new search, so older results give way to new ones
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @return how many entries the table holds
+     */
+    public int capacity() {
+        return data.length;
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 42) & 0xFF;
+    }
+
+    //Mate scores count plies from the root; in the table they count from the stored node
+    static int toTable(int score, int ply) {
+        if(score >= Search.MATE_BOUND){
+            return score + ply;
+        }
+        if(score <= -Search.MATE_BOUND){
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int fromTable(int score, int ply) {
+        if(score >= Search.MATE_BOUND){
+            return score - ply;
+        }
+        if(score <= -Search.MATE_BOUND){
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,83 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Records what each applied move changed so it can be taken back.
+ * <p>
+ * Entries live in parallel arrays that are allocated up front and only grow
+ * when a game runs past their capacity, so pushing and popping a move does not
+ * allocate.
+ */
+final class UndoStack {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int size;
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private ChessPiece[] movedPieces = new ChessPiece[INITIAL_CAPACITY];
+    private ChessPiece[] capturedPieces = new ChessPiece[INITIAL_CAPACITY];
+    private ChessGame.TeamColor[] teamTurns = new ChessGame.TeamColor[INITIAL_CAPACITY];
+
+    /**
+     * Records a move about to be applied
+     *
+     * @param move     the packed move (see {@link PackedMove})
+     * @param moved    the piece as it stood before moving (the pawn, for a promotion)
+     * @param captured the piece on the destination, or null
+     * @param teamTurn whose turn it was before the move
+     */
+    void push(int move, ChessPiece moved, ChessPiece captured, ChessGame.TeamColor teamTurn) {
+        if(size == moves.length){
+            grow();
+        }
+        moves[size] = move;
+        movedPieces[size] = moved;
+        capturedPieces[size] = captured;
+        teamTurns[size] = teamTurn;
+        size++;
+    }
+
+    /**
+     * Drops the top entry. Read it with the top accessors first.
+     */
+    void pop() {
+        size--;
+        movedPieces[size] = null;
+        capturedPieces[size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        while(size > 0){
+            pop();
+        }
+    }
+
+    int topMove() {
+        return moves[size - 1];
+    }
+
+    ChessPiece topMoved() {
+        return movedPieces[size - 1];
+    }
+
+    ChessPiece topCaptured() {
+        return capturedPieces[size - 1];
+    }
+
+    ChessGame.TeamColor topTeamTurn() {
+        return teamTurns[size - 1];
+    }
+
+    private void grow() {
+        int capacity = moves.length * 2;
+        moves = Arrays.copyOf(moves, capacity);
+        movedPieces = Arrays.copyOf(movedPieces, capacity);
+        capturedPieces = Arrays.copyOf(capturedPieces, capacity);
+        teamTurns = Arrays.copyOf(teamTurns, capacity);
+    }
+}
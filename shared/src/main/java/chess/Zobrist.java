@@ -0,0 +1,51 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for
+ * each piece on its square, plus the side key when black is to move, so a move
+ * updates the key with a couple of XORs instead of rehashing the board.
+ * <p>
+ * The keys come from a fixed seed so a position hashes the same on every JVM and
+ * stored keys stay valid across restarts.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDC0FFEEL);
+        for(long[] keys: PIECE_KEYS){
+            for(int square = 0; square < 64; square++){
+                keys[square] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece standing on a square
+     */
+    public static long piece(ChessPiece piece, int square) {
+        return PIECE_KEYS[ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return the key mixed in when black is to move
+     */
+    public static long side() {
+        return SIDE_KEY;
+    }
+
+    /**
+     * Folds a 64-bit key into an int for {@code hashCode}
+     */
+    static int fold(long key) {
+        return (int) (key ^ (key >>> 32));
+    }
+}
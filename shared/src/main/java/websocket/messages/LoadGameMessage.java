@@ -4,13 +4,30 @@ import chess.ChessGame;
 
 public class LoadGameMessage extends ServerMessage{
     private final ChessGame game;
+    //Centipawns from white's point of view, for an evaluation bar
+    private final int evaluation;
+    //The position as FEN, for clients and tools that don't read the board grid
+    private final String fen;
 
     public LoadGameMessage(ChessGame game){
         super(ServerMessageType.LOAD_GAME);
-        this.game = game;
+        //A copy, so the message stays the same while it is sent to each player even
+        //if the game moves on meanwhile. Clients read a whole game off the wire, so
+        //one is kept, but its board is copied as it is rather than rebuilt.
+        this.game = game == null ? null : game.copy();
+        this.evaluation = this.game == null ? 0 : this.game.getEvaluation();
+        this.fen = this.game == null ? null : this.game.toFen();
     }
 
     public ChessGame getGame(){
         return game;
     }
+
+    public int getEvaluation(){
+        return evaluation;
+    }
+
+    public String getFen(){
+        return fen;
+    }
 }
@@ -0,0 +1,35 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackTablesTest {
+
+    @Test
+    public void slidersMatchRayWalk(){
+        Random random = new Random(240);
+        for(int i = 0; i < 2000; i++){
+            long occupied = random.nextLong() & random.nextLong();
+            for(int square = 0; square < 64; square++){
+                assertEquals(Bitboards.rookAttacks(square, occupied), AttackTables.rook(square, occupied));
+                assertEquals(Bitboards.bishopAttacks(square, occupied), AttackTables.bishop(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void leapersMatchShifts(){
+        for(int square = 0; square < 64; square++){
+            assertEquals(Bitboards.knightAttacks(square), AttackTables.knight(square));
+            assertEquals(Bitboards.kingAttacks(square), AttackTables.king(square));
+        }
+        //Knight in the corner only has two jumps
+        assertEquals(2, Long.bitCount(AttackTables.knight(Bitboards.square(1, 1))));
+        //A white pawn on a2 only attacks b3
+        assertEquals(Bitboards.bit(Bitboards.square(3, 2)),
+                AttackTables.pawn(ChessGame.TeamColor.WHITE, Bitboards.square(2, 1)));
+    }
+}
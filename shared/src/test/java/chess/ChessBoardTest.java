@@ -0,0 +1,183 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessBoardTest {
+
+    @Test
+    public void bitboardsFollowAddPiece(){
+        ChessBoard board = new ChessBoard();
+        ChessPosition position = new ChessPosition(4, 5);
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        long bit = Bitboards.bit(Bitboards.square(position));
+        assertEquals(bit, board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertEquals(bit, board.getPieces(ChessGame.TeamColor.BLACK));
+        assertEquals(bit, board.getOccupied());
+
+        board.addPiece(position, null);
+        assertEquals(0L, board.getOccupied());
+        assertEquals(0L, board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+    }
+
+    @Test
+    public void resetBoardOccupancy(){
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        assertEquals(0xFFFFL, board.getPieces(ChessGame.TeamColor.WHITE));
+        assertEquals(0xFFFFL << 48, board.getPieces(ChessGame.TeamColor.BLACK));
+        assertEquals(Bitboards.bit(Bitboards.square(1, 5)),
+                board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+    }
+
+    @Test
+    public void bitboardsRebuiltAfterGson(){
+        ChessGame game = new ChessGame();
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        assertEquals(game.getBoard(), copy.getBoard());
+        assertEquals(game.getBoard().getOccupied(), copy.getBoard().getOccupied());
+
+        int moves = 0;
+        for(int col = 1; col <= 8; col++){
+            moves += copy.validMoves(new ChessPosition(1, col)).size();
+            moves += copy.validMoves(new ChessPosition(2, col)).size();
+        }
+        assertEquals(20, moves);
+    }
+
+    @Test
+    public void fenPlacementRoundTrips(){
+        ChessBoard start = new ChessBoard();
+        start.resetBoard();
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", start.toFen());
+
+        //Reusing a board only touches the squares that change, and keeps its indexes right
+        String placement = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R";
+        start.setFen(placement + " w KQkq - 0 1");
+        assertEquals(placement, start.toFen());
+        ChessBoard fresh = new ChessBoard();
+        fresh.setFen(placement);
+        assertEquals(fresh, start);
+        assertEquals(fresh.getOccupied(), start.getOccupied());
+        assertEquals(fresh.getEvaluation(), start.getEvaluation());
+        assertEquals(Bitboards.square(1, 5), start.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        for(String bad: new String[]{"8/8/8/8/8/8/8", "9/8/8/8/8/8/8/8", "8/8/8/8/8/8/8/7", "8/8/8/8/8/8/8/8/8",
+                "8/8/8/8/8/8/8/ppppppppp", "8/8/8/8/8/8/8/7x", ""}){
+            assertThrows(IllegalArgumentException.class, () -> start.setFen(bad), bad);
+        }
+        assertEquals(placement, start.toFen());
+    }
+
+    @Test
+    public void squareAttackedLooksOutward(){
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(3, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+
+        //The rook sees along the first row and column
+        assertTrue(board.isSquareAttacked(Bitboards.square(1, 8), ChessGame.TeamColor.BLACK));
+        assertTrue(board.isSquareAttacked(Bitboards.square(8, 1), ChessGame.TeamColor.BLACK));
+        assertFalse(board.isSquareAttacked(Bitboards.square(2, 2), ChessGame.TeamColor.BLACK));
+
+        //The white pawn attacks diagonally forward only
+        assertTrue(board.isSquareAttacked(Bitboards.square(4, 4), ChessGame.TeamColor.WHITE));
+        assertFalse(board.isSquareAttacked(Bitboards.square(2, 4), ChessGame.TeamColor.WHITE));
+        assertFalse(board.isSquareAttacked(Bitboards.square(4, 3), ChessGame.TeamColor.WHITE));
+
+        //A blocker cuts the rook's ray
+        board.addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        assertFalse(board.isSquareAttacked(Bitboards.square(1, 8), ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void pieceListsAndKingSquareTrackMoves(){
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertEquals(16, board.getPieceCount(ChessGame.TeamColor.WHITE));
+        assertEquals(Bitboards.square(8, 5), board.getKingSquare(ChessGame.TeamColor.BLACK));
+
+        //King walks forward and captures a pawn
+        int from = Bitboards.square(1, 5);
+        int to = Bitboards.square(7, 4);
+        ChessPiece captured = board.movePiece(from, to);
+        assertEquals(ChessPiece.PieceType.PAWN, captured.getPieceType());
+        assertEquals(to, board.getKingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(15, board.getPieceCount(ChessGame.TeamColor.BLACK));
+
+        long listed = 0L;
+        for(int i = 0; i < board.getPieceCount(ChessGame.TeamColor.WHITE); i++){
+            listed |= Bitboards.bit(board.getPieceSquare(ChessGame.TeamColor.WHITE, i));
+        }
+        assertEquals(board.getPieces(ChessGame.TeamColor.WHITE), listed);
+
+        board.addPiece(new ChessPosition(7, 4), null);
+        assertEquals(-1, board.getKingSquare(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void evaluationKeptInStepWithMoves(){
+        ChessGame game = new ChessGame();
+        assertEquals(0, game.getEvaluation(), "the starting position is symmetric");
+
+        Random random = new Random(5);
+        for(int ply = 0; ply < 150; ply++){
+            List<ChessMove> moves = new ArrayList<>(game.allLegalMoves(game.getTeamTurn()));
+            if(moves.isEmpty()){
+                break;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+
+            //A board built from scratch scores the same as the one updated move by move
+            assertEquals(ChessGame.fromFen(game.toFen()).getEvaluation(), game.getEvaluation(), "after ply " + ply);
+        }
+        while(true){
+            try {
+                game.undoMove();
+            } catch (IllegalStateException e) {
+                break;
+            }
+        }
+        assertEquals(0, game.getEvaluation());
+
+        //Taking away black's queen is worth about a queen
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        board.addPiece(ChessPosition.of(8, 4), null);
+        assertTrue(board.getEvaluation() > 900);
+    }
+
+    @Test
+    public void copyIsIndependent(){
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard copy = board.copy();
+        assertEquals(board, copy);
+        assertEquals(board.getZobristKey(), copy.getZobristKey());
+        assertEquals(board.getEvaluation(), copy.getEvaluation());
+
+        //Moving on the copy leaves the original alone, and the copy's index keeps up
+        copy.movePiece(Bitboards.square(2, 5), Bitboards.square(4, 5));
+        copy.addPiece(ChessPosition.of(8, 4), null);
+        assertNotEquals(board, copy);
+        assertNotNull(board.getPiece(ChessPosition.of(2, 5)));
+        assertNotNull(board.getPiece(ChessPosition.of(8, 4)));
+        assertEquals(Bitboards.bit(Bitboards.square(4, 5)) | (Bitboards.RANK_1 << 8 & ~Bitboards.bit(Bitboards.square(2, 5))),
+                copy.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        ChessBoard rebuilt = new ChessBoard();
+        rebuilt.setFen(copy.toFen());
+        assertEquals(rebuilt.getZobristKey(), copy.getZobristKey());
+        assertEquals(rebuilt.getEvaluation(), copy.getEvaluation());
+        assertEquals(0, board.getEvaluation());
+    }
+}
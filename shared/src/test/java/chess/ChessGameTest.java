@@ -0,0 +1,303 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameTest {
+
+    @Test
+    public void undoRestoresCaptureAndPromotion(){
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        game.setBoard(board);
+
+        ChessBoard before = copyOf(board);
+        game.doMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT));
+
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(new ChessPosition(8, 1)));
+        assertNull(board.getPiece(new ChessPosition(7, 2)));
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+
+        game.undoMove();
+        assertEquals(before, board);
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(2, board.getPieceCount(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void undoWithoutMovesFails(){
+        ChessGame game = new ChessGame();
+        assertThrows(IllegalStateException.class, game::undoMove);
+    }
+
+    @Test
+    public void statusFoundInOnePassAndRefreshedAfterChange(){
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(6, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        //Queen to a8 is mate, and the cached answer must not survive the change
+        board.addPiece(new ChessPosition(7, 1), null);
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+
+        //Queen to f7 instead takes every square without giving check
+        board.addPiece(new ChessPosition(8, 1), null);
+        board.addPiece(new ChessPosition(7, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessGame.GameStatus.STALEMATE, game.getGameStatus());
+        assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void zobristKeyFollowsMovesAndTranspositions(){
+        ChessGame game = new ChessGame();
+        long start = game.getZobristKey();
+        Random random = new Random(3);
+        for(int ply = 0; ply < 60; ply++){
+            List<ChessMove> moves = new ArrayList<>(game.allLegalMoves(game.getTeamTurn()));
+            if(moves.isEmpty()){
+                break;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+            assertEquals(copyOf(game.getBoard()).getZobristKey(), game.getBoard().getZobristKey());
+        }
+        while(true){
+            try {
+                game.undoMove();
+            } catch (IllegalStateException e) {
+                break;
+            }
+        }
+        assertEquals(start, game.getZobristKey());
+
+        //Knights out and back again is the same position
+        ChessGame knights = new ChessGame();
+        knights.doMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        knights.doMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        knights.doMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        knights.doMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        assertEquals(start, knights.getZobristKey());
+        assertEquals(new ChessGame(), knights);
+
+        ChessGame blackToMove = new ChessGame();
+        blackToMove.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(start, blackToMove.getZobristKey());
+    }
+
+    @Test
+    public void threefoldRepetitionAndUndo() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for(int round = 0; round < 2; round++){
+            assertNotEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+            shuffleKnights(game);
+            assertTrue(game.isRepeated());
+        }
+        //The starting position for the third time
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus(ChessGame.TeamColor.BLACK));
+        assertEquals(8, game.getHalfmoveClock());
+
+        game.undoMove();
+        assertNotEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+        game.doMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+
+        //A pawn move starts over
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(0, game.getHalfmoveClock());
+        assertFalse(game.isRepeated());
+        game.undoMove();
+        assertEquals(8, game.getHalfmoveClock());
+        assertTrue(game.isRepeated());
+    }
+
+    @Test
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        Gson gson = new Gson();
+        ChessGame late = gson.fromJson(gson.toJson(game).replace("\"halfmoveClock\":4", "\"halfmoveClock\":98"),
+                ChessGame.class);
+        assertEquals(98, late.getHalfmoveClock());
+
+        late.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        assertEquals(ChessGame.GameStatus.NORMAL, late.getGameStatus());
+        late.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null));
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, late.getGameStatus());
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, late.getGameStatus(ChessGame.TeamColor.BLACK));
+
+        //Checkmate on the fiftieth move still counts as checkmate
+        ChessGame mate = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(6, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        mate.setBoard(board);
+        mate = gson.fromJson(gson.toJson(mate).replace("\"halfmoveClock\":0", "\"halfmoveClock\":99"),
+                ChessGame.class);
+        mate.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), null));
+        assertEquals(ChessGame.GameStatus.CHECKMATE, mate.getGameStatus());
+    }
+
+    @Test
+    public void historySavedWithGame(){
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+        Gson gson = new Gson();
+        String json = gson.toJson(game);
+        ChessGame copy = gson.fromJson(json, ChessGame.class);
+        assertEquals(8, copy.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, copy.getGameStatus());
+
+        //Only positions since the last capture or pawn move are kept
+        game.doMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        long afterPawnMove = game.getZobristKey();
+        game.doMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        assertTrue(gson.toJson(game).contains("{\"halfmoveClock\":1,\"keys\":[" + afterPawnMove + "]}"));
+
+        //Games saved before the history was added still load
+        String oldJson = json.replaceAll(",\"positionHistory\":\\{[^}]*}", "");
+        assertFalse(oldJson.contains("positionHistory"));
+        ChessGame old = gson.fromJson(oldJson, ChessGame.class);
+        assertEquals(0, old.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.NORMAL, old.getGameStatus());
+    }
+
+    @Test
+    public void fenRoundTrips() throws InvalidMoveException {
+        assertEquals(ChessGame.START_FEN, new ChessGame().toFen());
+        assertEquals(new ChessGame(), ChessGame.fromFen(ChessGame.START_FEN));
+        //Castling and en passant are read but don't exist here
+        assertEquals(ChessGame.START_FEN,
+                ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1").toFen());
+
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        String fen = "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b - - 1 2";
+        assertEquals(fen, game.toFen());
+        assertEquals(2, game.getFullmoveNumber());
+        game.undoMove();
+        assertEquals(2, game.getFullmoveNumber());
+        game.undoMove();
+        assertEquals(1, game.getFullmoveNumber());
+
+        ChessGame parsed = ChessGame.fromFen(fen);
+        assertEquals(fen, parsed.toFen());
+        assertEquals(ChessGame.TeamColor.BLACK, parsed.getTeamTurn());
+        assertEquals(1, parsed.getHalfmoveClock());
+        parsed.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null));
+        assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3", parsed.toFen());
+
+        //Clocks can be left off
+        ChessGame bare = ChessGame.fromFen("8/8/8/8/8/8/8/K6k b - e3");
+        assertEquals("8/8/8/8/8/8/8/K6k b - - 0 1", bare.toFen());
+    }
+
+    @Test
+    public void snapshotStaysPut() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.makeMove(ChessMove.of(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        String fen = game.toFen();
+        PositionView view = game.snapshot();
+
+        game.makeMove(ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        assertEquals(fen, view.toFen());
+        assertEquals(fen, view.toString());
+        assertEquals(ChessGame.TeamColor.WHITE, view.getTeamTurn());
+        assertEquals(1, view.getHalfmoveClock());
+        assertEquals(2, view.getFullmoveNumber());
+        assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                view.getPiece(ChessPosition.of(4, 5)));
+        assertNull(view.getPiece(ChessPosition.of(2, 5)));
+
+        //A game rebuilt from the snapshot is the position it was taken at
+        ChessGame rebuilt = view.toGame();
+        assertEquals(fen, rebuilt.toFen());
+        assertEquals(view.getZobristKey(), rebuilt.getZobristKey());
+        assertEquals(view, rebuilt.snapshot());
+        assertEquals(view.hashCode(), rebuilt.snapshot().hashCode());
+        assertNotEquals(view, game.snapshot());
+
+        //A copy doesn't follow the game it was taken from either
+        ChessGame copy = game.copy();
+        String copied = copy.toFen();
+        game.undoMove();
+        assertEquals(copied, copy.toFen());
+        assertEquals(ChessGame.fromFen(copied).getZobristKey(), copy.getZobristKey());
+    }
+
+    //Off-board rows and columns used to wrap onto real squares once packed
+    @Test
+    public void offBoardMovesAreInvalid(){
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/7Q/8/4K3 w - - 0 1");
+        String fen = game.toFen();
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(3, 8), new ChessPosition(2, 9), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(9, 1), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(0, 5), new ChessPosition(1, 5), null)));
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(3, 8), new ChessPosition(2, 9), null)));
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(2, 1), new ChessPosition(9, 1), null)));
+        assertTrue(game.isLegal(new ChessMove(new ChessPosition(3, 8), new ChessPosition(3, 1), null)));
+        assertEquals(fen, game.toFen());
+    }
+
+    @Test
+    public void badFenLeavesGameAlone(){
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        for(String bad: new String[]{
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR ww - - 0 1",
+                "8/8/8/8/8/8/8/K6k w KX - 0 1",
+                "8/8/8/8/8/8/8/K6k w K- - 0 1",
+                "8/8/8/8/8/8/8/K6k w - e4 0 1",
+                "8/8/8/8/8/8/8/K6k w - - x 1",
+                "8/8/8/8/8/8/8/K6k w - - 0 0",
+                "8/8/8/8/8/8/8/K6k w - - 0 1 extra"}){
+            assertThrows(IllegalArgumentException.class, () -> game.setFen(bad), bad);
+        }
+        assertEquals(ChessGame.START_FEN, game.toFen());
+        assertSame(board, game.getBoard());
+    }
+
+    //Both knights out and back: four moves, back at the same position
+    private static void shuffleKnights(ChessGame game){
+        game.doMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.doMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.doMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.doMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+    }
+
+    private ChessBoard copyOf(ChessBoard board){
+        ChessBoard copy = new ChessBoard();
+        for(int square = 0; square < 64; square++){
+            copy.setPiece(square, board.getPiece(square));
+        }
+        return copy;
+    }
+}
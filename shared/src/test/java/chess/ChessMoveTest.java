@@ -0,0 +1,49 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessMoveTest {
+
+    @Test
+    public void factoriesShareInstances(){
+        assertSame(ChessPosition.of(2, 5), ChessPosition.of(2, 5));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertSame(ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.ROOK),
+                ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.ROOK));
+
+        //Off-board positions still work, they just aren't shared
+        ChessPosition offBoard = ChessPosition.of(0, 9);
+        assertEquals(0, offBoard.getRow());
+        assertEquals(new ChessPosition(0, 9), offBoard);
+        assertEquals(new ChessMove(offBoard, ChessPosition.of(1, 1), null),
+                ChessMove.of(offBoard, ChessPosition.of(1, 1), null));
+    }
+
+    @Test
+    public void gsonKeepsShapeAndReturnsSharedInstances(){
+        Gson gson = new Gson();
+        ChessMove move = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+
+        String json = gson.toJson(move);
+        assertEquals("{\"startPosition\":{\"row\":2,\"col\":5},\"endPosition\":{\"row\":4,\"col\":5}}", json);
+        assertSame(move, gson.fromJson(json, ChessMove.class));
+
+        //What the web client sends
+        String sent = "{\"startPosition\":{\"row\":7,\"col\":2},\"endPosition\":{\"row\":8,\"col\":1},"
+                + "\"promotionPiece\":\"QUEEN\"}";
+        ChessMove promotion = gson.fromJson(sent, ChessMove.class);
+        assertSame(ChessMove.of(ChessPosition.of(7, 2), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN), promotion);
+        assertNull(gson.fromJson("{\"startPosition\":null,\"endPosition\":null,\"promotionPiece\":null}",
+                ChessMove.class).getStartPosition());
+
+        ChessGame game = new ChessGame();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                copy.getBoard().getPiece(ChessPosition.of(1, 5)));
+        assertEquals(game, copy);
+    }
+}
@@ -0,0 +1,183 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveGeneratorTest {
+
+    @Test
+    public void matchesPlayOutAndCheckOverRandomGames(){
+        Random random = new Random(7);
+        for(int gameNumber = 0; gameNumber < 40; gameNumber++){
+            ChessGame game = new ChessGame();
+            for(int ply = 0; ply < 120; ply++){
+                ChessGame.TeamColor color = game.getTeamTurn();
+                Set<ChessMove> expected = playOutAndCheck(game, color);
+                List<ChessMove> actual = new ArrayList<>(game.allLegalMoves(color));
+
+                assertEquals(expected.size(), actual.size(), "duplicate or missing moves");
+                assertEquals(expected, new HashSet<>(actual));
+                if(actual.isEmpty()){
+                    break;
+                }
+                game.doMove(actual.get(random.nextInt(actual.size())));
+            }
+        }
+    }
+
+    //Every from, to and promotion checked alone agrees with the generated list
+    @Test
+    public void isLegalMatchesGeneratedMovesOverRandomGames(){
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT,
+                ChessPiece.PieceType.KING, ChessPiece.PieceType.PAWN};
+        Random random = new Random(11);
+        for(int gameNumber = 0; gameNumber < 10; gameNumber++){
+            ChessGame game = new ChessGame();
+            for(int ply = 0; ply < 100; ply++){
+                MoveList moves = new MoveList();
+                game.legalMoves(game.getTeamTurn(), moves);
+                for(int from = 0; from < 64; from++){
+                    for(int to = 0; to < 64; to++){
+                        for(ChessPiece.PieceType promotion: promotions){
+                            int move = PackedMove.encode(from, to, promotion, false);
+                            assertEquals(moves.contains(move), game.isLegal(move), PackedMove.toString(move));
+                        }
+                    }
+                }
+                if(moves.size() == 0){
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    //Captures and promotions alone are exactly those moves out of the full list
+    @Test
+    public void tacticalMovesAreTheCapturesAndPromotions(){
+        Random random = new Random(17);
+        for(int gameNumber = 0; gameNumber < 20; gameNumber++){
+            ChessGame game = new ChessGame();
+            for(int ply = 0; ply < 120; ply++){
+                MoveList moves = new MoveList();
+                game.legalMoves(game.getTeamTurn(), moves);
+                Set<Integer> expected = new HashSet<>();
+                for(int i = 0; i < moves.size(); i++){
+                    if(PackedMove.isCapture(moves.get(i)) || PackedMove.isPromotion(moves.get(i))){
+                        expected.add(moves.get(i));
+                    }
+                }
+                MoveList tactical = new MoveList();
+                MoveGenerator.generateTactical(game.getBoard(), game.getTeamTurn(), tactical);
+                Set<Integer> actual = new HashSet<>();
+                for(int i = 0; i < tactical.size(); i++){
+                    actual.add(tactical.get(i));
+                }
+                assertEquals(expected.size(), tactical.size(), "duplicate or missing moves");
+                assertEquals(expected, actual);
+                if(moves.size() == 0){
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+
+        //A pawn push onto the far row counts, though it captures nothing
+        ChessGame game = ChessGame.fromFen("7k/1P6/8/8/8/8/8/K7 w - - 0 1");
+        MoveList tactical = new MoveList();
+        MoveGenerator.generateTactical(game.getBoard(), game.getTeamTurn(), tactical);
+        assertEquals(4, tactical.size());
+    }
+
+    //Every quiet move played can be found again by taking it back from where it landed
+    @Test
+    public void originsIncludeEveryQuietMove(){
+        Random random = new Random(13);
+        for(int gameNumber = 0; gameNumber < 20; gameNumber++){
+            ChessGame game = new ChessGame();
+            for(int ply = 0; ply < 100; ply++){
+                MoveList moves = new MoveList();
+                game.legalMoves(game.getTeamTurn(), moves);
+                for(int i = 0; i < moves.size(); i++){
+                    int move = moves.get(i);
+                    if(PackedMove.isCapture(move) || PackedMove.isPromotion(move)){
+                        continue;
+                    }
+                    game.doMove(move);
+                    long origins = MoveGenerator.origins(game.getBoard(), PackedMove.to(move));
+                    assertNotEquals(0L, origins & Bitboards.bit(PackedMove.from(move)), PackedMove.toString(move));
+                    game.undoMove();
+                }
+                if(moves.size() == 0){
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+
+        //A pawn only ever came from behind, two squares only from its start row
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1");
+        assertEquals(Bitboards.bit(Bitboards.square(3, 5)) | Bitboards.bit(Bitboards.square(2, 5)),
+                MoveGenerator.origins(game.getBoard(), Bitboards.square(4, 5)));
+        game.setFen("4k3/8/8/8/8/8/4P3/4K3 b - - 0 1");
+        assertEquals(0L, MoveGenerator.origins(game.getBoard(), Bitboards.square(2, 5)));
+    }
+
+    @Test
+    public void sinkCanStopEarly(){
+        ChessGame game = new ChessGame();
+        int[] seen = {0};
+        game.legalMoves(ChessGame.TeamColor.WHITE, move -> ++seen[0] < 3);
+        assertEquals(3, seen[0]);
+
+        //Piece-level moves reach a sink the same way, without a collection in between
+        ChessBoard board = game.getBoard();
+        ChessPiece knight = board.getPiece(ChessPosition.of(1, 2));
+        MoveList moves = new MoveList();
+        assertTrue(knight.pieceMoves(board, Bitboards.square(1, 2), moves));
+        assertEquals(new HashSet<>(knight.pieceMoves(board, ChessPosition.of(1, 2))),
+                new HashSet<>(moves.toChessMoves()));
+        assertFalse(knight.pieceMoves(board, Bitboards.square(1, 2), move -> false));
+        assertSame(PieceMovesCalculator.of(ChessPiece.PieceType.KNIGHT), KnightMovesCalculator.INSTANCE);
+    }
+
+    @Test
+    public void pinnedPieceStaysOnLine(){
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(3, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        board.addPiece(new ChessPosition(6, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        game.setBoard(board);
+
+        //The bishop can only slide along the pin, up to and including the queen
+        assertEquals(4, game.validMoves(new ChessPosition(3, 3)).size());
+    }
+
+    private Set<ChessMove> playOutAndCheck(ChessGame game, ChessGame.TeamColor color){
+        Set<ChessMove> moves = new HashSet<>();
+        ChessBoard board = game.getBoard();
+        for(int square = 0; square < 64; square++){
+            ChessPiece piece = board.getPiece(square);
+            if(piece == null || piece.getTeamColor() != color){
+                continue;
+            }
+            for(ChessMove move: piece.pieceMoves(board, Bitboards.position(square))){
+                game.doMove(move);
+                if(!game.isInCheck(color)){
+                    moves.add(move);
+                }
+                game.undoMove();
+            }
+        }
+        return moves;
+    }
+}
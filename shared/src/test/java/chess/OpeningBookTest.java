@@ -0,0 +1,197 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {A comment
+            over two lines} Nc6 (2... d6 3. d4) 3. Bb5 $1 a6 1-0
+
+            [Event "Two"]
+            [Result "1-0"]
+
+            1. e4 c5 ; Sicilian
+            2. Nf3 d6 1-0
+
+            [Event "Three"]
+            [Result "0-1"]
+
+            1. d4 d5 2. c4 e6 0-1
+            """;
+
+    @Test
+    public void sanFindsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals("e2e4", PackedMove.toString(San.parse(game, "e4")));
+        assertEquals("g1f3", PackedMove.toString(San.parse(game, "Nf3+")));
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "e5"));
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "O-O"));
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "Z9"));
+    }
+
+    @Test
+    public void sanDisambiguatesAndPromotes() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(3, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        board.addPiece(ChessPosition.of(3, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        board.addPiece(ChessPosition.of(7, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        game.setBoard(board);
+
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "Nc4"));
+        assertEquals("a3c4", PackedMove.toString(San.parse(game, "Nac4")));
+        assertEquals("e3c4", PackedMove.toString(San.parse(game, "Nexc4")));
+        assertEquals("b7b8q", PackedMove.toString(San.parse(game, "b8=Q")));
+        assertEquals("b7b8n", PackedMove.toString(San.parse(game, "b8N")));
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "b8"));
+    }
+
+    @Test
+    public void polyglotMovesRoundTrip() {
+        for(int from = 0; from < 64; from += 7){
+            for(int to = 0; to < 64; to += 5){
+                for(ChessPiece.PieceType promotion: new ChessPiece.PieceType[]{null,
+                        ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT}){
+                    int move = PackedMove.encode(from, to, promotion, false);
+                    assertEquals(move, OpeningBook.fromPolyglot(OpeningBook.toPolyglot(move)));
+                }
+            }
+        }
+        //e2e4 in Polyglot's own numbering
+        assertEquals(0x031C, OpeningBook.toPolyglot(PackedMove.encode(12, 28, null, false)));
+    }
+
+    @Test
+    public void builtBookGivesMoves(@TempDir Path dir) throws IOException, InvalidMoveException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLY);
+        assertEquals(3, builder.addPgn(new StringReader(PGN)));
+        Path file = dir.resolve("book.bin");
+        int entries = builder.write(file);
+        assertEquals(entries * 16L, Files.size(file));
+
+        OpeningBook book = OpeningBook.open(file);
+        assertEquals(entries, book.size());
+
+        //e4 won twice for white, d4 lost once
+        ChessGame game = new ChessGame();
+        assertTrue(book.contains(game));
+        assertEquals(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null), book.bestMove(game));
+        assertEquals(4, book.weight(game, ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)));
+        assertEquals(0, book.weight(game, ChessMove.of(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null)));
+        assertEquals(0, book.weight(game, ChessMove.of(ChessPosition.of(2, 1), ChessPosition.of(3, 1), null)));
+
+        Set<ChessMove> picked = new HashSet<>();
+        for(long random = 0; random < 100; random++){
+            picked.add(book.pickMove(game, random));
+        }
+        assertEquals(Set.of(ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null)), picked);
+
+        MoveList moves = new MoveList();
+        assertEquals(2, book.moves(game, moves));
+
+        //Black's replies after e4; the comment and the variation are skipped
+        game.doMove(San.parse(game, "e4"));
+        assertEquals(2, book.moves(game, new MoveList()));
+        game.doMove(San.parse(game, "e5"));
+        game.doMove(San.parse(game, "Nf3"));
+        assertEquals(ChessMove.of(ChessPosition.of(8, 2), ChessPosition.of(6, 3), null), book.bestMove(game));
+
+        game.doMove(San.parse(game, "Nc6"));
+        game.doMove(San.parse(game, "Nc3"));
+        assertFalse(book.contains(game));
+        assertNull(book.bestMove(game));
+        assertNull(book.pickMove(game, 0));
+    }
+
+    @Test
+    public void plyLimit(@TempDir Path dir) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(1);
+        builder.addPgn(new StringReader(PGN));
+        Path file = dir.resolve("book.bin");
+        assertEquals(2, builder.write(file));
+        assertEquals(2, OpeningBook.open(file).size());
+    }
+
+    @Test
+    public void skipsIllegalBookMoves(@TempDir Path dir) throws IOException {
+        //A white pawn can't go from e2 to e5, though the piece is white's
+        ChessGame game = new ChessGame();
+        int move = PackedMove.encode(Bitboards.square(2, 5), Bitboards.square(5, 5), null, false);
+        ByteBuffer entry = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES)
+                .putLong(game.getZobristKey())
+                .putShort((short) OpeningBook.toPolyglot(move))
+                .putShort((short) 1);
+        Path file = dir.resolve("book.bin");
+        Files.write(file, entry.array());
+
+        OpeningBook book = OpeningBook.open(file);
+        assertTrue(book.contains(game));
+        assertNull(book.bestMove(game));
+        assertNull(book.pickMove(game, 0));
+    }
+
+    //Illegal entries under the key are skipped, and later legal ones still found
+    @Test
+    public void passesOnOnlyLegalBookMoves(@TempDir Path dir) throws IOException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1");
+        int illegal = PackedMove.encode(Bitboards.square(4, 5), Bitboards.square(6, 5), null, false);
+        int capture = PackedMove.encode(Bitboards.square(4, 5), Bitboards.square(5, 4), null, false);
+        int push = PackedMove.encode(Bitboards.square(4, 5), Bitboards.square(5, 5), null, false);
+        ByteBuffer entries = ByteBuffer.allocate(3 * OpeningBook.ENTRY_BYTES);
+        int[] moves = {illegal, capture, push};
+        int[] weights = {50, 2, 1};
+        for(int i = 0; i < moves.length; i++){
+            entries.putLong(game.getZobristKey())
+                    .putShort((short) OpeningBook.toPolyglot(moves[i]))
+                    .putShort((short) weights[i])
+                    .putInt(0);
+        }
+        Path file = dir.resolve("book.bin");
+        Files.write(file, entries.array());
+        OpeningBook book = OpeningBook.open(file);
+
+        ChessMove exd5 = ChessMove.of(ChessPosition.of(4, 5), ChessPosition.of(5, 4), null);
+        ChessMove e5 = ChessMove.of(ChessPosition.of(4, 5), ChessPosition.of(5, 5), null);
+        assertEquals(exd5, book.bestMove(game));
+        Set<ChessMove> picked = new HashSet<>();
+        for(long random = 0; random < 100; random++){
+            picked.add(book.pickMove(game, random));
+        }
+        assertEquals(Set.of(exd5, e5), picked);
+
+        //Only the legal two reach the sink, the capture flagged as one
+        MoveList passed = new MoveList();
+        assertEquals(2, book.moves(game, passed));
+        assertEquals(2, passed.size());
+        assertTrue(PackedMove.isCapture(passed.get(0)));
+        assertTrue(PackedMove.sameMove(capture, passed.get(0)));
+        assertFalse(PackedMove.isCapture(passed.get(1)));
+
+        assertEquals(2, book.weight(game, exd5));
+        assertEquals(0, book.weight(game, new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 9), null)));
+    }
+
+    @Test
+    public void rejectsOtherFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("bad.bin");
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
@@ -0,0 +1,38 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedMoveTest {
+
+    @Test
+    public void roundTripsThroughChessMove(){
+        ChessMove move = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT);
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+
+        int packed = PackedMove.fromChessMove(move, board);
+        assertEquals(Bitboards.square(7, 2), PackedMove.from(packed));
+        assertEquals(Bitboards.square(8, 1), PackedMove.to(packed));
+        assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(packed));
+        assertTrue(PackedMove.isCapture(packed));
+        assertEquals(move, PackedMove.toChessMove(packed));
+        assertEquals("b7a8n", PackedMove.toString(packed));
+        assertTrue(packed < (1 << 16));
+    }
+
+    @Test
+    public void listMatchesIgnoringFlags(){
+        MoveList moves = new MoveList();
+        for(int i = 0; i < 300; i++){
+            moves.add(PackedMove.encode(i & 63, (i + 1) & 63, null, false));
+        }
+        assertEquals(300, moves.size());
+        assertTrue(moves.contains(PackedMove.encode(5, 6, null, true)));
+        assertFalse(moves.contains(PackedMove.encode(5, 6, ChessPiece.PieceType.QUEEN, false)));
+
+        moves.clear();
+        assertTrue(moves.isEmpty());
+    }
+}
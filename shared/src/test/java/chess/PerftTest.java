@@ -0,0 +1,55 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    private static final long[] START_COUNTS = {1, 20, 400, 8902, 197281};
+
+    @Test
+    public void startPositionCounts(){
+        ChessGame game = new ChessGame();
+        for(int depth = 0; depth < START_COUNTS.length; depth++){
+            assertEquals(START_COUNTS[depth], Perft.perft(game, depth), "depth " + depth);
+        }
+        //Moves are all taken back
+        assertEquals(new ChessGame(), game);
+    }
+
+    @Test
+    public void divideAddsUpToPerft(){
+        ChessGame game = new ChessGame();
+        Map<String, Long> divide = Perft.divide(game, 3);
+
+        assertEquals(20, divide.size());
+        assertEquals(600L, divide.get("e2e4"));
+        assertEquals(8902L, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void parallelMatchesSerial(){
+        //No castling or en passant in these rules, so a promotion-heavy position is a fair check
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(7, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(2, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(int depth = 1; depth <= 4; depth++){
+                assertEquals(Perft.perft(game, depth), Perft.perft(game, depth, pool), "depth " + depth);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnReaderTest {
+
+    private static final String PGN = """
+            [Event "Ünïcode \\"quoted\\""]
+            [White "Somebody"]
+            [Result "1-0"]
+
+            1.e4 e5 2. Nf3 {A comment
+            over two lines (with a bracket] in it)} Nc6 (2... d6 3. d4 (3. Bc4)) 3. Bb5 $1 a6?! ; to the end
+            % an escaped line 4. Qxf7
+            4. Ba4 1-0
+            [Event "No result in movetext"]
+            [Result "1/2-1/2"]
+
+            1. d4 d5 2. c4
+            [Event "Castles"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 *
+
+            [SetUp "1"]
+            [FEN "7k/8/8/8/8/8/8/K6R w - - 0 1"]
+
+            1. Rh7+ Kg8 0-1
+            """;
+
+    @Test
+    public void readsMainLines() throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        assertEquals(4, new PgnReader(new StringReader(PGN)).forEach(games::add));
+
+        PgnGame first = games.get(0);
+        assertEquals("Ünïcode \"quoted\"", first.tag("Event"));
+        assertEquals("Somebody", first.tag("White"));
+        assertEquals(List.of("Event", "White", "Result"), List.copyOf(first.tags().keySet()));
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6?!", "Ba4"), first.moves());
+        assertEquals("1-0", first.result());
+
+        PgnGame second = games.get(1);
+        assertEquals(List.of("d4", "d5", "c4"), second.moves());
+        assertEquals("1/2-1/2", second.result());
+
+        assertEquals("O-O", games.get(2).moves().get(6));
+        assertEquals("*", games.get(2).result());
+        assertEquals("0-1", games.get(3).result());
+    }
+
+    @Test
+    public void bytesReadAsUtf8() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(PGN.getBytes(StandardCharsets.UTF_8));
+        PgnReader reader = new PgnReader(bytes);
+        assertEquals("Ünïcode \"quoted\"", reader.next().tag("Event"));
+        assertEquals(List.of("d4", "d5", "c4"), reader.next().moves());
+        reader.next();
+        reader.next();
+        assertNull(reader.next());
+        assertNull(new PgnReader(ByteBuffer.allocate(0)).next());
+    }
+
+    @Test
+    public void replaysGames() {
+        PgnImporter.Replay first = PgnImporter.replay(new PgnGame(Map.of(),
+                List.of("e4", "e5", "Nf3"), "*"));
+        assertTrue(first.isValid());
+        assertEquals(3, first.moves().length);
+        assertEquals(ChessGame.TeamColor.BLACK, first.game().getTeamTurn());
+
+        //No castling in these rules
+        PgnImporter.Replay castles = PgnImporter.replay(new PgnGame(Map.of(),
+                List.of("e4", "e5", "Nf3", "Nc6", "Bc4", "Bc5", "O-O"), "*"));
+        assertFalse(castles.isValid());
+        assertEquals(6, castles.moves().length);
+        assertEquals(ChessGame.TeamColor.WHITE, castles.game().getTeamTurn());
+
+        PgnImporter.Replay badFen = PgnImporter.replay(new PgnGame(Map.of("FEN", "nonsense"),
+                List.of(), "*"));
+        assertFalse(badFen.isValid());
+    }
+
+    @Test
+    public void importsInParallel() throws IOException {
+        StringBuilder archive = new StringBuilder();
+        for(int i = 0; i < 50; i++){
+            archive.append(PGN).append('\n');
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PgnImporter importer = new PgnImporter(pool, 3);
+            Queue<PgnImporter.Replay> seen = new ConcurrentLinkedQueue<>();
+            PgnImporter.Stats stats = importer.importGames(new PgnReader(new StringReader(archive.toString())),
+                    seen::add);
+
+            assertEquals(200, stats.games());
+            assertEquals(200, seen.size());
+            assertEquals(50, stats.invalid());
+            //7 + 3 + 6 + 2 moves played per copy
+            assertEquals(50 * 18, stats.moves());
+            assertTrue(stats.gamesPerSecond() > 0);
+
+            //The FEN game starts from its own position
+            assertTrue(seen.stream().anyMatch(replay -> replay.game().getBoard()
+                    .getPiece(ChessPosition.of(8, 7)) != null));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void consumerFailureStopsImport() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            PgnImporter importer = new PgnImporter(pool, 2);
+            IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                    () -> importer.importGames(new PgnReader(new StringReader(PGN)), replay -> {
+                        throw new IllegalStateException("full");
+                    }));
+            assertEquals("full", thrown.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionCacheTest {
+
+    @Test
+    public void sameAnswersWithAndWithoutCache(){
+        PositionCache cache = new PositionCache(1);
+        Random random = new Random(11);
+        for(int gameNumber = 0; gameNumber < 20; gameNumber++){
+            ChessGame plain = new ChessGame();
+            ChessGame cached = new ChessGame();
+            cached.setPositionCache(cache);
+            for(int ply = 0; ply < 80; ply++){
+                ChessGame.TeamColor color = plain.getTeamTurn();
+                assertEquals(plain.getGameStatus(color), cached.getGameStatus(color));
+                assertEquals(plain.getGameStatus(ChessGame.opponent(color)),
+                        cached.getGameStatus(ChessGame.opponent(color)));
+
+                List<ChessMove> moves = new ArrayList<>(plain.allLegalMoves(color));
+                assertEquals(new HashSet<>(moves), new HashSet<>(cached.allLegalMoves(color)));
+                if(moves.isEmpty()){
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                assertEquals(new HashSet<>(plain.validMoves(move.getStartPosition())),
+                        new HashSet<>(cached.validMoves(move.getStartPosition())));
+                plain.doMove(move);
+                assertDoesNotThrow(() -> cached.makeMove(move));
+            }
+        }
+        //Every game starts from the same opening position
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getMisses() > 0);
+    }
+
+    @Test
+    public void sharedAcrossGamesAndEvicts(){
+        PositionCache cache = new PositionCache(1);
+        ChessGame first = new ChessGame();
+        first.setPositionCache(cache);
+        first.validMoves(ChessPosition.of(2, 5));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        ChessGame second = new ChessGame();
+        second.setPositionCache(cache);
+        assertEquals(ChessGame.GameStatus.NORMAL, second.getGameStatus());
+        assertEquals(1, cache.getHits());
+
+        //Illegal moves are still turned away when the answer comes from the cache
+        assertThrows(InvalidMoveException.class, () -> second.makeMove(
+                ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(5, 5), null)));
+
+        //Far more positions than fit make the cache replace entries
+        Random random = new Random(3);
+        ChessGame game = new ChessGame();
+        game.setPositionCache(cache);
+        for(int i = 0; i < 3 * cache.capacity(); i++){
+            List<ChessMove> moves = new ArrayList<>(game.allLegalMoves(game.getTeamTurn()));
+            if(moves.isEmpty() || i % 150 == 0){
+                game = new ChessGame();
+                game.setPositionCache(cache);
+                continue;
+            }
+            game.doMove(moves.get(random.nextInt(moves.size())));
+        }
+        assertTrue(cache.getEvictions() > 0);
+
+        cache.clear();
+        assertEquals(0, cache.getHits() + cache.getMisses() + cache.getEvictions());
+    }
+}
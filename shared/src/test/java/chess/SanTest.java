@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SanTest {
+
+    @Test
+    public void formatsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals("e4", San.format(game, San.parse(game, "e4")));
+        assertEquals("Nf3", San.format(game, ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> San.format(game, ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(5, 5), null)));
+        assertThrows(InvalidMoveException.class,
+                () -> San.format(game, ChessMove.of(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null)));
+        //Formatting leaves the game alone
+        assertEquals(ChessGame.fromFen(ChessGame.START_FEN), game);
+
+        game.setFen("6k1/5ppp/8/8/8/8/8/R3K2R w - - 0 1");
+        assertEquals("Ra8#", San.format(game, San.parse(game, "Ra8")));
+        game.setFen("7k/8/8/3p4/4P3/8/8/K7 w - - 0 1");
+        assertEquals("exd5", San.format(game, San.parse(game, "exd5")));
+        game.setFen("7k/1P6/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals("b8=Q+", San.format(game, San.parse(game, "b8=Q")));
+        assertEquals("b8=N", San.format(game, San.parse(game, "b8N")));
+    }
+
+    @Test
+    public void formatsMoveJustMade() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R3K2R w - - 0 1");
+        assertThrows(IllegalStateException.class, () -> San.formatLastMove(game));
+        game.makeMove(ChessMove.of(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null));
+        String fen = game.toFen();
+        assertEquals("Ra8#", San.formatLastMove(game));
+        assertEquals(fen, game.toFen());
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+    }
+
+    @Test
+    public void disambiguates() throws InvalidMoveException {
+        //Rooks on a1 and h1, and on a1 and a5: file, then rank
+        ChessGame game = ChessGame.fromFen("6k1/8/8/R7/8/8/4K3/R6R w - - 0 1");
+        assertEquals("Rhf1", San.format(game, San.parse(game, "Rhf1")));
+        assertEquals("R1a3", San.format(game, San.parse(game, "R1a3")));
+        assertThrows(InvalidMoveException.class, () -> San.parse(game, "Ra3"));
+
+        //Queens on a1, a3 and c1 all reach b2; the a1 queen needs both
+        game.setFen("8/7k/8/8/8/Q7/8/Q1Q1K3 w - - 0 1");
+        assertEquals("Qa1b2", San.format(game, San.parse(game, "Qa1b2")));
+        assertEquals("Qcb2", San.format(game, San.parse(game, "Qcb2")));
+        assertEquals("Q3b2", San.format(game, San.parse(game, "Q3b2")));
+
+        //A pinned knight isn't a rival, so Nd2 needs no file
+        game.setFen("k7/8/8/8/8/8/8/1N2KN1r w - - 0 1");
+        assertEquals("Nd2", San.format(game, San.parse(game, "Nd2")));
+    }
+
+    //Every legal move written and read back, over random games
+    @Test
+    public void roundTripsLegalMoves() throws InvalidMoveException {
+        Random random = new Random(3);
+        for(int gameNumber = 0; gameNumber < 20; gameNumber++){
+            ChessGame game = new ChessGame();
+            for(int ply = 0; ply < 80; ply++){
+                MoveList moves = new MoveList();
+                game.legalMoves(game.getTeamTurn(), moves);
+                if(moves.size() == 0){
+                    break;
+                }
+                Set<String> written = new HashSet<>();
+                for(int i = 0; i < moves.size(); i++){
+                    String san = San.format(game, moves.get(i));
+                    assertTrue(written.add(san), san);
+                    assertTrue(PackedMove.sameMove(moves.get(i), San.parse(game, san)), san);
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+}
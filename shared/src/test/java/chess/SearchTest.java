@@ -0,0 +1,116 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+
+    @Test
+    public void findsMateInOne(){
+        //Back rank: Rd1-d8 mates a king boxed in by its own pawns
+        ChessGame game = game(ChessGame.TeamColor.WHITE,
+                "Kg1", "Rd1", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7");
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        assertEquals(ChessMove.of(ChessPosition.of(1, 4), ChessPosition.of(8, 4), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    public void takesHangingQueenAndLeavesGameAsItWas(){
+        ChessGame game = game(ChessGame.TeamColor.BLACK,
+                "Ke1", "Qd4", "Pa2", "ke8", "nc6", "pa7");
+        ChessGame before = game(ChessGame.TeamColor.BLACK,
+                "Ke1", "Qd4", "Pa2", "ke8", "nc6", "pa7");
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertEquals(ChessMove.of(ChessPosition.of(6, 3), ChessPosition.of(4, 4), null), result.bestMove());
+        assertTrue(result.score() > 250, "a knight up, scored " + result.score());
+        assertEquals(before, game);
+    }
+
+    @Test
+    public void stopsAtNodeBudget(){
+        ChessGame game = new ChessGame();
+        SearchResult result = new Search().search(game, SearchLimits.nodes(20_000));
+
+        assertNotNull(result.bestMove());
+        assertTrue(result.depth() >= 1);
+        //The first iteration always finishes, after that the budget is checked every node
+        assertTrue(result.nodes() <= 20_000 + 1, "visited " + result.nodes());
+        assertTrue(result.nodesPerSecond() > 0);
+        assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+    }
+
+    @Test
+    public void noMovesMeansNoBestMove(){
+        ChessGame stalemate = game(ChessGame.TeamColor.BLACK, "Kf7", "Qg6", "kh8");
+        SearchResult result = new Search().search(stalemate, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    public void parallelSearchAgreesAndCountsEveryThread(){
+        ChessGame game = game(ChessGame.TeamColor.WHITE,
+                "Kg1", "Rd1", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7");
+        try (ParallelSearch search = new ParallelSearch(4, 1)) {
+            assertEquals(4, search.getThreads());
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+            assertEquals(ChessMove.of(ChessPosition.of(1, 4), ChessPosition.of(8, 4), null), result.bestMove());
+            assertEquals(Search.MATE - 1, result.score());
+
+            //A quiet position, cut off by time
+            SearchResult opening = search.search(new ChessGame(), SearchLimits.millis(200));
+            assertNotNull(opening.bestMove());
+            assertTrue(opening.depth() >= 1);
+        }
+        assertEquals(game(ChessGame.TeamColor.WHITE,
+                "Kg1", "Rd1", "Pf2", "Pg2", "Ph2", "kg8", "pf7", "pg7", "ph7"), game);
+    }
+
+    @Test
+    public void tableKeepsEntriesAndMateDistance(){
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(11, 27, null, true);
+        table.store(42L, move, TranspositionTable.toTable(Search.MATE - 5, 3), 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(42L);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        //The same mate seen one ply closer to the root is one ply shorter
+        assertEquals(Search.MATE - 4, TranspositionTable.fromTable(TranspositionTable.score(entry), 2));
+
+        //Same slot, different position
+        assertEquals(0, table.probe(42L + table.capacity()));
+        table.clear();
+        assertEquals(0, table.probe(42L));
+    }
+
+    //Upper case is white, lower case black, then the square
+    static ChessGame game(ChessGame.TeamColor turn, String... pieces) {
+        ChessBoard board = new ChessBoard();
+        for(String piece: pieces){
+            char letter = piece.charAt(0);
+            ChessGame.TeamColor color = Character.isUpperCase(letter)
+                    ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessPiece.PieceType type = switch (Character.toUpperCase(letter)) {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                case 'B' -> ChessPiece.PieceType.BISHOP;
+                case 'N' -> ChessPiece.PieceType.KNIGHT;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(ChessPosition.of(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1),
+                    ChessPiece.of(color, type));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,156 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTest {
+
+    @TempDir
+    static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(directory, ForkJoinPool.commonPool());
+        generator.generate("KPK");
+        generator.generate("KRK");
+        tablebase = Tablebase.open(directory);
+    }
+
+    @Test
+    public void generatesSubtablesFirst(){
+        //Every piece a pawn can promote to
+        assertEquals(Set.of("KPK", "KQK", "KRK", "KBK", "KNK"), tablebase.getTables());
+        assertThrows(IllegalArgumentException.class,
+                () -> new TablebaseGenerator(directory, ForkJoinPool.commonPool()).generate("KQKR"));
+    }
+
+    @Test
+    public void longestMatesAreTheKnownOnes() throws IOException {
+        //Mate in 10 with a queen, in 16 with a rook
+        assertEquals(19, longestWin(directory.resolve("KQK.tb")));
+        assertEquals(31, longestWin(directory.resolve("KRK.tb")));
+        //A minor piece alone never mates
+        assertEquals(-1, longestWin(directory.resolve("KBK.tb")));
+        assertEquals(-1, longestWin(directory.resolve("KNK.tb")));
+    }
+
+    @Test
+    public void probesEitherColor(){
+        //Qb8 mates
+        int value = tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Kg6", "Qb1", "kh8"));
+        assertTrue(Tablebase.isWin(value));
+        assertEquals(1, Tablebase.plies(value));
+        //The same, turned around
+        assertEquals(value, tablebase.probe(SearchTest.game(ChessGame.TeamColor.BLACK, "kg3", "qb8", "Kh1")));
+
+        int mated = tablebase.probe(SearchTest.game(ChessGame.TeamColor.BLACK, "Kg6", "Qb8", "kh8"));
+        assertTrue(Tablebase.isLoss(mated));
+        assertEquals(0, Tablebase.plies(mated));
+
+        //King in front of the pawn on the sixth wins whoever moves; a rook pawn with
+        //the defending king in the corner doesn't
+        assertTrue(Tablebase.isWin(tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke6", "Pe5", "ke8"))));
+        assertTrue(Tablebase.isLoss(tablebase.probe(SearchTest.game(ChessGame.TeamColor.BLACK, "Ke6", "Pe5", "ke8"))));
+        assertEquals(0, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Kb1", "Pa2", "kb7")));
+        assertEquals(0, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke1", "ke8")));
+
+        assertEquals(Tablebase.NONE, tablebase.probe(new ChessGame()));
+        assertEquals(Tablebase.NONE, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke1", "Qd1", "ke8", "qd8")));
+        assertEquals(Tablebase.NONE, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke1", "Bc1", "Nb1", "ke8")));
+        //A side without a king isn't a tablebase position, nor a draw
+        assertEquals(Tablebase.NONE, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke1")));
+        assertEquals(Tablebase.NONE, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Ke1", "Qd1")));
+        assertEquals(Tablebase.NONE, tablebase.probe(SearchTest.game(ChessGame.TeamColor.WHITE, "Qd1", "ke8")));
+        ChessGame empty = new ChessGame();
+        empty.setBoard(new ChessBoard());
+        assertEquals(Tablebase.NONE, tablebase.probe(empty));
+    }
+
+    @Test
+    public void agreesWithMoveGenerator(){
+        //Every win has a move to a loss one ply shorter, and every loss only moves to wins
+        Random random = new Random(19);
+        String[] pieces = {"Q", "R", "P"};
+        int checked = 0;
+        while(checked < 300){
+            String piece = pieces[random.nextInt(pieces.length)];
+            ChessGame game = SearchTest.game(random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK,
+                    "K" + square(random), piece + square(random), "k" + square(random));
+            if(Long.bitCount(game.getBoard().getOccupied()) != 3 || game.isInCheck(ChessGame.opponent(game.getTeamTurn()))
+                    || (piece.equals("P") && (game.getBoard().getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)
+                    & 0xFF000000000000FFL) != 0)){
+                continue;
+            }
+            int value = tablebase.probe(game);
+            MoveList moves = new MoveList();
+            game.legalMoves(game.getTeamTurn(), moves);
+
+            if(value == 0){
+                for(int i = 0; i < moves.size(); i++){
+                    game.doMove(moves.get(i));
+                    assertFalse(Tablebase.isLoss(tablebase.probe(game)));
+                    game.undoMove();
+                }
+            } else if(Tablebase.isWin(value)){
+                boolean found = false;
+                for(int i = 0; i < moves.size(); i++){
+                    game.doMove(moves.get(i));
+                    int reply = tablebase.probe(game);
+                    found |= Tablebase.isLoss(reply) && Tablebase.plies(reply) == Tablebase.plies(value) - 1;
+                    game.undoMove();
+                }
+                assertTrue(found);
+            } else {
+                assertEquals(Tablebase.plies(value) == 0, moves.isEmpty());
+                for(int i = 0; i < moves.size(); i++){
+                    game.doMove(moves.get(i));
+                    int reply = tablebase.probe(game);
+                    assertTrue(Tablebase.isWin(reply) && Tablebase.plies(reply) < Tablebase.plies(value));
+                    game.undoMove();
+                }
+            }
+            checked++;
+        }
+    }
+
+    @Test
+    public void searchPlaysTablebaseMoves(){
+        ChessGame game = SearchTest.game(ChessGame.TeamColor.WHITE, "Kd4", "Re1", "kd6");
+        int plies = Tablebase.plies(tablebase.probe(game));
+
+        Search search = new Search();
+        search.setTablebase(tablebase);
+        SearchResult result = search.search(game, SearchLimits.depth(3));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - plies, result.score());
+
+        game.doMove(result.bestMove());
+        assertEquals(plies - 1, Tablebase.plies(tablebase.probe(game)));
+    }
+
+    private static String square(Random random) {
+        return "" + (char) ('a' + random.nextInt(8)) + (1 + random.nextInt(8));
+    }
+
+    private static int longestWin(Path table) throws IOException {
+        byte[] values = Files.readAllBytes(table);
+        int longest = -1;
+        for(byte value: values){
+            if(Tablebase.isWin(value & 0xFF)){
+                longest = Math.max(longest, Tablebase.plies(value & 0xFF));
+            }
+        }
+        return longest;
+    }
+}